@@ -65,7 +65,6 @@ public class ChaCha20 {
         }
     }
 
-    @SuppressWarnings("unused")
     public ChaCha20(byte[] key, byte[] nonce, int counter) {
         if (key.length != KEY_SIZE) {
             throw new IllegalArgumentException();
@@ -134,36 +133,38 @@ public class ChaCha20 {
         return dst;
     }
 
+    /**
+     * 生成密钥流，每8个long对应一个64字节的块（小端序），用于基于ChaCha20的伪随机数生成
+     *
+     * @param dst    输出数组
+     * @param offset 写入的起始下标
+     * @param count  long的数量，必须是8的倍数
+     */
+    public void keyStream(long[] dst, int offset, int count) {
+        if ((count & 7) != 0 || offset < 0 || offset > dst.length - count) {
+            throw new IllegalArgumentException("Invalid key stream range");
+        }
+
+        int[] x = new int[16];
+        for (int pos = offset; pos < offset + count; pos += 8) {
+            nextBlock(x);
+            for (int i = 0; i < 8; i++) {
+                dst[pos + i] = (x[2 * i] & 0xFFFFFFFFL) | ((long) x[2 * i + 1] << 32);
+            }
+        }
+    }
+
     private void encrypt(byte[] dst, byte[] src, int len) {
         int[] x = new int[16];
         byte[] output = new byte[64];
         int i, dpos = 0, spos = 0;
 
         while (len > 0) {
-            for (i = 16; i-- > 0; ) {
-                x[i] = this.matrix[i];
-            }
-            for (i = 20; i > 0; i -= 2) {
-                quarterRound(x, 0, 4, 8, 12);
-                quarterRound(x, 1, 5, 9, 13);
-                quarterRound(x, 2, 6, 10, 14);
-                quarterRound(x, 3, 7, 11, 15);
-                quarterRound(x, 0, 5, 10, 15);
-                quarterRound(x, 1, 6, 11, 12);
-                quarterRound(x, 2, 7, 8, 13);
-                quarterRound(x, 3, 4, 9, 14);
-            }
-            for (i = 16; i-- > 0; ) {
-                x[i] += this.matrix[i];
-            }
+            nextBlock(x);
             for (i = 16; i-- > 0; ) {
                 intToLittleEndian(x[i], output, 4 * i);
             }
 
-            this.matrix[12] += 1;
-            if (this.matrix[12] <= 0) {
-                this.matrix[13] += 1;
-            }
             if (len <= 64) {
                 for (i = len; i-- > 0; ) {
                     dst[i + dpos] = (byte) (src[i + spos] ^ output[i]);
@@ -179,6 +180,36 @@ public class ChaCha20 {
         }
     }
 
+    /**
+     * 计算当前计数器对应的密钥流块，然后计数器加一
+     *
+     * @param x 输出的16个int
+     */
+    private void nextBlock(int[] x) {
+        int i;
+        for (i = 16; i-- > 0; ) {
+            x[i] = this.matrix[i];
+        }
+        for (i = 20; i > 0; i -= 2) {
+            quarterRound(x, 0, 4, 8, 12);
+            quarterRound(x, 1, 5, 9, 13);
+            quarterRound(x, 2, 6, 10, 14);
+            quarterRound(x, 3, 7, 11, 15);
+            quarterRound(x, 0, 5, 10, 15);
+            quarterRound(x, 1, 6, 11, 12);
+            quarterRound(x, 2, 7, 8, 13);
+            quarterRound(x, 3, 4, 9, 14);
+        }
+        for (i = 16; i-- > 0; ) {
+            x[i] += this.matrix[i];
+        }
+
+        this.matrix[12] += 1;
+        if (this.matrix[12] <= 0) {
+            this.matrix[13] += 1;
+        }
+    }
+
     private int littleEndianToInt(byte[] bs, int i) {
         return (bs[i] & 0xff) | ((bs[i + 1] & 0xff) << 8) | ((bs[i + 2] & 0xff) << 16) | ((bs[i + 3] & 0xff) << 24);
     }
@@ -0,0 +1,37 @@
+package com.jinpei.id.common.algorithm;
+
+/**
+ * Jump一致性哈希（Lamping &amp; Veach），把64位key均匀映射到[0, buckets)，不需要虚拟节点和查表。
+ * <p>
+ * 桶数从n增加到m时，只有约(m - n) / m的key改变所在的桶，并且只会移动到新增的桶，
+ * 适合按店铺分库分表后扩容：分片数翻倍时只有一半的店铺需要迁移。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public final class JumpConsistentHash {
+    private JumpConsistentHash() {
+    }
+
+    /**
+     * 计算key所在的桶
+     *
+     * @param key     key
+     * @param buckets 桶数
+     * @return 桶下标，范围[0, buckets)
+     */
+    public static int bucket(long key, int buckets) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("Buckets should be larger than 0");
+        }
+
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -0,0 +1,95 @@
+package com.jinpei.id.common.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 前后填充缓存行的原子Long，避免伪共享（false sharing）。
+ * JVM不会跨继承层次重排字段，因此通过三层继承保证value前后各有56字节的填充。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-16
+ */
+public class PaddedAtomicLong extends PaddedAtomicLongValue {
+    @SuppressWarnings("unused")
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    private static final AtomicLongFieldUpdater<PaddedAtomicLongValue> UPDATER =
+            AtomicLongFieldUpdater.newUpdater(PaddedAtomicLongValue.class, "value");
+
+    public PaddedAtomicLong() {
+        this(0L);
+    }
+
+    public PaddedAtomicLong(long initialValue) {
+        this.value = initialValue;
+    }
+
+    /**
+     * 获取当前值
+     *
+     * @return 当前值
+     */
+    public long get() {
+        return value;
+    }
+
+    /**
+     * 设置新值
+     *
+     * @param newValue 新值
+     */
+    public void set(long newValue) {
+        value = newValue;
+    }
+
+    /**
+     * CAS更新
+     *
+     * @param expect 期望值
+     * @param update 新值
+     * @return 更新成功返回true
+     */
+    public boolean compareAndSet(long expect, long update) {
+        return UPDATER.compareAndSet(this, expect, update);
+    }
+
+    /**
+     * 原子增加并返回旧值
+     *
+     * @param delta 增量
+     * @return 旧值
+     */
+    public long getAndAdd(long delta) {
+        return UPDATER.getAndAdd(this, delta);
+    }
+
+    /**
+     * 原子增加并返回新值
+     *
+     * @param delta 增量
+     * @return 新值
+     */
+    public long addAndGet(long delta) {
+        return UPDATER.addAndGet(this, delta);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
+
+/**
+ * value之前的填充
+ */
+@SuppressWarnings("unused")
+abstract class PaddedAtomicLongLhs {
+    private long p1, p2, p3, p4, p5, p6, p7;
+}
+
+/**
+ * 实际存储的值
+ */
+abstract class PaddedAtomicLongValue extends PaddedAtomicLongLhs {
+    volatile long value;
+}
@@ -0,0 +1,118 @@
+package com.jinpei.id.common.random;
+
+import com.jinpei.id.common.algorithm.ChaCha20;
+
+import java.security.SecureRandom;
+
+/**
+ * 基于ChaCha20的线程本地密码学安全伪随机数来源（DRBG）：
+ * 1. 每个线程持有独立的ChaCha20实例，密钥和nonce取自SecureRandom，线程之间没有任何共享状态；
+ * 2. 每次批量生成一块密钥流（默认512个long，即64个ChaCha20块）放入线程本地缓冲区，逐个取出；
+ * 3. 每生成指定数量的块后从SecureRandom重新取密钥，限制单个密钥输出的数据量。
+ * 吞吐量随线程数线性增长，适合多线程大量生成短UUID。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class ChaCha20EntropySource implements EntropySource {
+    /**
+     * 默认缓冲区大小，单位long
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 512;
+
+    /**
+     * 默认每个密钥最多生成的缓冲区次数，512个long时为1GB密钥流
+     */
+    private static final int DEFAULT_RESEED_INTERVAL = 1 << 18;
+
+    /**
+     * 每个密钥最多生成的ChaCha20块数，32位块计数器超过2^31之后会变成负数
+     */
+    private static final long MAX_BLOCKS_PER_KEY = 1L << 31;
+
+    /**
+     * 种子来源
+     */
+    private static final SecureRandom SEED_RANDOM = new SecureRandom();
+
+    /**
+     * 缓冲区大小，单位long
+     */
+    private final int bufferSize;
+
+    /**
+     * 每个密钥最多生成的缓冲区次数
+     */
+    private final int reseedInterval;
+
+    /**
+     * 线程本地的随机数生成器
+     */
+    private final ThreadLocal<Generator> generators = ThreadLocal.withInitial(Generator::new);
+
+    public ChaCha20EntropySource() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_RESEED_INTERVAL);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param bufferSize     线程本地缓冲区大小，单位long，必须是8的倍数
+     * @param reseedInterval 每个密钥最多生成的缓冲区次数，每个密钥生成的块数bufferSize / 8 * reseedInterval不能超过2^31
+     */
+    public ChaCha20EntropySource(int bufferSize, int reseedInterval) {
+        if (bufferSize <= 0 || (bufferSize & 7) != 0) {
+            throw new IllegalArgumentException("Buffer size should be a positive multiple of 8");
+        }
+        if (reseedInterval <= 0) {
+            throw new IllegalArgumentException("Reseed interval should be larger than 0");
+        }
+        if (bufferSize / 8 * (long) reseedInterval > MAX_BLOCKS_PER_KEY) {
+            throw new IllegalArgumentException("Blocks per key (bufferSize / 8 * reseedInterval) should not be "
+                    + "larger than " + MAX_BLOCKS_PER_KEY);
+        }
+
+        this.bufferSize = bufferSize;
+        this.reseedInterval = reseedInterval;
+    }
+
+    @Override
+    public long nextLong() {
+        return generators.get().nextLong();
+    }
+
+    /**
+     * 单个线程的随机数生成器
+     */
+    private class Generator {
+        private final long[] buffer = new long[bufferSize];
+
+        private int position = bufferSize;
+
+        private int refills = reseedInterval;
+
+        private ChaCha20 cipher;
+
+        long nextLong() {
+            if (position == bufferSize) {
+                refill();
+            }
+            return buffer[position++];
+        }
+
+        private void refill() {
+            if (refills == reseedInterval) {
+                byte[] key = new byte[32];
+                byte[] nonce = new byte[12];
+                SEED_RANDOM.nextBytes(key);
+                SEED_RANDOM.nextBytes(nonce);
+                cipher = new ChaCha20(key, nonce, 0);
+                refills = 0;
+            }
+
+            cipher.keyStream(buffer, 0, bufferSize);
+            refills++;
+            position = 0;
+        }
+    }
+}
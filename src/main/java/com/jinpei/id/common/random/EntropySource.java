@@ -0,0 +1,16 @@
+package com.jinpei.id.common.random;
+
+/**
+ * 随机数来源，生成器通过随机数来源获取随机bit，便于替换为无竞争的线程本地实现
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public interface EntropySource {
+    /**
+     * 获取64bit随机数
+     *
+     * @return 随机数
+     */
+    long nextLong();
+}
@@ -0,0 +1,26 @@
+package com.jinpei.id.common.random;
+
+import java.security.SecureRandom;
+
+/**
+ * 基于共享SecureRandom的随机数来源，与UUID.randomUUID()的随机性相同，多线程时会在SecureRandom上串行
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public final class SecureRandomEntropySource implements EntropySource {
+    /**
+     * 单例
+     */
+    public static final SecureRandomEntropySource INSTANCE = new SecureRandomEntropySource();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private SecureRandomEntropySource() {
+    }
+
+    @Override
+    public long nextLong() {
+        return random.nextLong();
+    }
+}
@@ -0,0 +1,54 @@
+package com.jinpei.id.common.time;
+
+/**
+ * 手动时间源，时间只会在调用{@link #set(long)}或{@link #advance(long)}时变化，用于单元测试和基准测试。
+ * 注意：当前时间单位内的序号用尽时，生成器会一直等待时间前进。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class ManualTimeSource implements TimeSource {
+    /**
+     * 当前毫秒时间戳
+     */
+    private volatile long currentMillis;
+
+    /**
+     * 构造函数，初始时间为当前系统时间
+     */
+    public ManualTimeSource() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param currentMillis 初始毫秒时间戳
+     */
+    public ManualTimeSource(long currentMillis) {
+        this.currentMillis = currentMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentMillis;
+    }
+
+    /**
+     * 设置当前时间，允许回拨
+     *
+     * @param currentMillis 毫秒时间戳
+     */
+    public void set(long currentMillis) {
+        this.currentMillis = currentMillis;
+    }
+
+    /**
+     * 调整当前时间，负数表示回拨
+     *
+     * @param deltaMillis 调整的毫秒数
+     */
+    public synchronized void advance(long deltaMillis) {
+        this.currentMillis += deltaMillis;
+    }
+}
@@ -0,0 +1,22 @@
+package com.jinpei.id.common.time;
+
+/**
+ * 系统时间源，每次调用都读取{@link System#currentTimeMillis()}，所有生成器默认使用该时间源
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public final class SystemTimeSource implements TimeSource {
+    /**
+     * 单例
+     */
+    public static final SystemTimeSource INSTANCE = new SystemTimeSource();
+
+    private SystemTimeSource() {
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
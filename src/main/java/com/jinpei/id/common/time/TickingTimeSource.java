@@ -0,0 +1,91 @@
+package com.jinpei.id.common.time;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 缓存时钟时间源。后台守护线程按固定周期读取系统时间，通过volatile字段发布，
+ * 调用方读取时间只是一次volatile读，适用于时钟源读取较慢的虚拟化环境。
+ * <p>
+ * 读到的时间最多落后一个刷新周期（加上线程调度延迟），并且保证单调不减。
+ * 不再使用时需要调用{@link #close()}停止后台线程。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+@Slf4j
+public class TickingTimeSource implements TimeSource, AutoCloseable {
+    /**
+     * 缓存的毫秒时间戳
+     */
+    private volatile long currentMillis;
+
+    /**
+     * 是否正在运行
+     */
+    private volatile boolean running = true;
+
+    /**
+     * 刷新周期，单位纳秒
+     */
+    private final long tickNanos;
+
+    /**
+     * 刷新线程
+     */
+    private final Thread ticker;
+
+    /**
+     * 构造函数，每毫秒刷新一次
+     */
+    public TickingTimeSource() {
+        this(1);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param tickMillis 刷新周期，单位毫秒
+     */
+    public TickingTimeSource(long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick millis should be larger than 0");
+        }
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.currentMillis = System.currentTimeMillis();
+        this.ticker = new Thread(this::tick, "id-generator-time-ticker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentMillis;
+    }
+
+    /**
+     * 停止后台刷新线程
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    /**
+     * 后台刷新时间，系统时间回拨时保持原值，保证单调不减
+     */
+    private void tick() {
+        while (running) {
+            long millis = System.currentTimeMillis();
+            if (millis > currentMillis) {
+                currentMillis = millis;
+            }
+            LockSupport.parkNanos(this, tickNanos);
+        }
+        log.debug("Time ticker stopped");
+    }
+}
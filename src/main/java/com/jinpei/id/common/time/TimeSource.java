@@ -0,0 +1,16 @@
+package com.jinpei.id.common.time;
+
+/**
+ * 时间源，生成器通过时间源获取当前时间，便于替换为缓存时钟或测试用的手动时钟
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public interface TimeSource {
+    /**
+     * 获取当前时间
+     *
+     * @return 毫秒时间戳
+     */
+    long currentTimeMillis();
+}
@@ -1,5 +1,6 @@
 package com.jinpei.id.common.utils;
 
+import com.jinpei.id.common.algorithm.LuhnChecksum;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigInteger;
@@ -85,24 +86,7 @@ public class IdUtils {
      * @return 店铺编码
      */
     public static Long getShopCode(String shopId, long maxShopCode) {
-        long numberShopId = Long.parseLong(shopId, 16);
-        String strNumberShopId = String.valueOf(numberShopId);
-        int[] numbers = new int[strNumberShopId.length()];
-        for (int i = 0; i < strNumberShopId.length(); i++) {
-            numbers[i] = Character.getNumericValue(strNumberShopId.charAt(i));
-        }
-        for (int i = numbers.length - 1; i >= 0; i -= 2) {
-            numbers[i] <<= 1;
-            numbers[i] = numbers[i] / 10 + numbers[i] % 10;
-        }
-
-        int validationCode = 0;
-        for (int number : numbers) {
-            validationCode += number;
-        }
-        validationCode *= validationCode;
-        validationCode %= maxShopCode;
-        return validationCode < 2L ? validationCode + 2L : validationCode;
+        return LuhnChecksum.shopCode(Long.parseLong(shopId, 16), maxShopCode);
     }
 
     /**
@@ -291,22 +275,7 @@ public class IdUtils {
      * @return 校验码
      */
     public static int getValidationCode(long originId, int maxCode) {
-        String strOriginId = String.valueOf(originId);
-        int[] numbers = new int[strOriginId.length()];
-        for (int i = 0, length = strOriginId.length(); i < length; i++) {
-            numbers[i] = Character.getNumericValue(strOriginId.charAt(i));
-        }
-        for (int i = numbers.length - 2; i >= 0; i -= 2) {
-            numbers[i] <<= 1;
-            numbers[i] = numbers[i] / 10 + numbers[i] % 10;
-        }
-
-        int validationCode = 0;
-        for (int number : numbers) {
-            validationCode += number;
-        }
-        validationCode *= 9;
-        return validationCode % maxCode;
+        return LuhnChecksum.validationCode(originId, maxCode);
     }
 
     /**
@@ -317,22 +286,7 @@ public class IdUtils {
      * @return 校验码
      */
     public static long getValidationCode(long originId, long maxCode) {
-        String strOriginId = String.valueOf(originId);
-        int[] numbers = new int[strOriginId.length()];
-        for (int i = 0, length = strOriginId.length(); i < length; i++) {
-            numbers[i] = Character.getNumericValue(strOriginId.charAt(i));
-        }
-        for (int i = numbers.length - 2; i >= 0; i -= 2) {
-            numbers[i] <<= 1;
-            numbers[i] = numbers[i] / 10 + numbers[i] % 10;
-        }
-
-        long validationCode = 0L;
-        for (int number : numbers) {
-            validationCode += number;
-        }
-        validationCode *= 9;
-        return validationCode % maxCode;
+        return LuhnChecksum.validationCode(originId, maxCode);
     }
 
     /**
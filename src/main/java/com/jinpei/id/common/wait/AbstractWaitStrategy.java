@@ -0,0 +1,170 @@
+package com.jinpei.id.common.wait;
+
+import com.jinpei.id.common.time.TimeSource;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 等待策略基类，统计等待次数、自旋/让出/挂起次数以及等待耗时，用于在CPU占用和尾延迟之间做取舍。
+ * 时钟已经到达目标时间的调用不计入统计。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public abstract class AbstractWaitStrategy implements WaitStrategy {
+    /**
+     * Thread.onSpinWait，JDK 9以下不存在该方法时为null
+     */
+    private static final MethodHandle ON_SPIN_WAIT = findOnSpinWait();
+
+    /**
+     * 等待次数
+     */
+    private final LongAdder waitCount = new LongAdder();
+
+    /**
+     * 自旋次数
+     */
+    protected final LongAdder spinCount = new LongAdder();
+
+    /**
+     * 让出CPU次数
+     */
+    protected final LongAdder yieldCount = new LongAdder();
+
+    /**
+     * 挂起（park或sleep）次数
+     */
+    protected final LongAdder parkCount = new LongAdder();
+
+    /**
+     * 等待总耗时，单位纳秒
+     */
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * 单次等待的最大耗时，单位纳秒
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @Override
+    public final long waitUntil(long targetMillis, TimeSource timeSource) {
+        long currentMillis = timeSource.currentTimeMillis();
+        if (currentMillis >= targetMillis) {
+            return currentMillis;
+        }
+
+        long startNanos = System.nanoTime();
+        currentMillis = doWait(targetMillis, currentMillis, timeSource);
+        long spends = System.nanoTime() - startNanos;
+        waitCount.increment();
+        waitNanos.add(spends);
+        long max;
+        while (spends > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, spends)) {
+            //重试直到更新成功或已有更大值
+        }
+        return currentMillis;
+    }
+
+    /**
+     * 等待时间源的当前时间到达目标时间，调用时当前时间一定小于目标时间
+     *
+     * @param targetMillis  目标时间，单位毫秒
+     * @param currentMillis 当前时间，单位毫秒
+     * @param timeSource    时间源
+     * @return 等待结束时的当前时间，不小于目标时间
+     */
+    protected abstract long doWait(long targetMillis, long currentMillis, TimeSource timeSource);
+
+    /**
+     * 自旋一次，JDK 9及以上调用Thread.onSpinWait提示CPU当前处于自旋等待
+     */
+    protected void spin() {
+        spinCount.increment();
+        if (null != ON_SPIN_WAIT) {
+            try {
+                ON_SPIN_WAIT.invokeExact();
+            } catch (Throwable ignored) {
+                //onSpinWait不会抛出异常
+            }
+        }
+    }
+
+    /**
+     * 获取等待次数
+     *
+     * @return 等待次数
+     */
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    /**
+     * 获取自旋次数
+     *
+     * @return 自旋次数
+     */
+    public long getSpinCount() {
+        return spinCount.sum();
+    }
+
+    /**
+     * 获取让出CPU次数
+     *
+     * @return 让出CPU次数
+     */
+    public long getYieldCount() {
+        return yieldCount.sum();
+    }
+
+    /**
+     * 获取挂起次数
+     *
+     * @return 挂起次数
+     */
+    public long getParkCount() {
+        return parkCount.sum();
+    }
+
+    /**
+     * 获取等待总耗时
+     *
+     * @return 等待总耗时，单位纳秒
+     */
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    /**
+     * 获取单次等待的最大耗时
+     *
+     * @return 最大耗时，单位纳秒
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{waitCount=" + getWaitCount() + ", spinCount=" + getSpinCount()
+                + ", yieldCount=" + getYieldCount() + ", parkCount=" + getParkCount()
+                + ", waitNanos=" + getWaitNanos() + ", maxWaitNanos=" + getMaxWaitNanos() + '}';
+    }
+
+    /**
+     * 查找Thread.onSpinWait，项目以JDK 8为编译目标，所以通过MethodHandle调用
+     *
+     * @return Thread.onSpinWait的MethodHandle，不存在时返回null
+     */
+    private static MethodHandle findOnSpinWait() {
+        try {
+            return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
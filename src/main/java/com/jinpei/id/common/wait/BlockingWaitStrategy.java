@@ -0,0 +1,55 @@
+package com.jinpei.id.common.wait;
+
+import com.jinpei.id.common.time.TimeSource;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 阻塞等待策略，每次Thread.sleep固定毫秒数后检查时钟，CPU占用最低，唤醒延迟最高可达sleep间隔。
+ * 默认间隔20毫秒，与早期版本秒级生成器的行为一致。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+@Slf4j
+public class BlockingWaitStrategy extends AbstractWaitStrategy {
+    /**
+     * 默认的sleep毫秒数
+     */
+    private static final long DEFAULT_SLEEP_MILLIS = 20L;
+
+    /**
+     * 每次sleep的毫秒数
+     */
+    private final long sleepMillis;
+
+    public BlockingWaitStrategy() {
+        this(DEFAULT_SLEEP_MILLIS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param sleepMillis 每次sleep的毫秒数
+     */
+    public BlockingWaitStrategy(long sleepMillis) {
+        if (sleepMillis <= 0) {
+            throw new IllegalArgumentException("Sleep millis should be larger than 0");
+        }
+
+        this.sleepMillis = sleepMillis;
+    }
+
+    @Override
+    protected long doWait(long targetMillis, long currentMillis, TimeSource timeSource) {
+        while (currentMillis < targetMillis) {
+            parkCount.increment();
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                log.error("Sleep error ", e);
+            }
+            currentMillis = timeSource.currentTimeMillis();
+        }
+        return currentMillis;
+    }
+}
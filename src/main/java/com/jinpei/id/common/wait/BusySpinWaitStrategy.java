@@ -0,0 +1,22 @@
+package com.jinpei.id.common.wait;
+
+import com.jinpei.id.common.time.TimeSource;
+
+/**
+ * 忙等待策略，一直自旋直到时钟到达目标时间，延迟最低但会占满一个CPU核。
+ * 适合毫秒级时间戳，等待时间不超过1毫秒。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class BusySpinWaitStrategy extends AbstractWaitStrategy {
+
+    @Override
+    protected long doWait(long targetMillis, long currentMillis, TimeSource timeSource) {
+        while (currentMillis < targetMillis) {
+            spin();
+            currentMillis = timeSource.currentTimeMillis();
+        }
+        return currentMillis;
+    }
+}
@@ -0,0 +1,53 @@
+package com.jinpei.id.common.wait;
+
+import com.jinpei.id.common.time.TimeSource;
+
+/**
+ * 先自旋后让出CPU的等待策略，自旋指定次数后仍未到达目标时间则每次循环调用Thread.yield
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class SpinYieldWaitStrategy extends AbstractWaitStrategy {
+    /**
+     * 默认的自旋次数
+     */
+    private static final int DEFAULT_SPIN_TRIES = 100;
+
+    /**
+     * 让出CPU之前的自旋次数
+     */
+    private final int spinTries;
+
+    public SpinYieldWaitStrategy() {
+        this(DEFAULT_SPIN_TRIES);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param spinTries 让出CPU之前的自旋次数
+     */
+    public SpinYieldWaitStrategy(int spinTries) {
+        if (spinTries < 0) {
+            throw new IllegalArgumentException("Spin tries should not be negative");
+        }
+
+        this.spinTries = spinTries;
+    }
+
+    @Override
+    protected long doWait(long targetMillis, long currentMillis, TimeSource timeSource) {
+        int tries = 0;
+        while (currentMillis < targetMillis) {
+            if (tries++ < spinTries) {
+                spin();
+            } else {
+                yieldCount.increment();
+                Thread.yield();
+            }
+            currentMillis = timeSource.currentTimeMillis();
+        }
+        return currentMillis;
+    }
+}
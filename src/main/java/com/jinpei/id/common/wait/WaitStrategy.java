@@ -0,0 +1,20 @@
+package com.jinpei.id.common.wait;
+
+import com.jinpei.id.common.time.TimeSource;
+
+/**
+ * 等待策略，生成器当前时间单位（毫秒或秒）的序号用尽后，通过等待策略等待时钟进入下一个时间单位
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public interface WaitStrategy {
+    /**
+     * 等待时间源的当前时间到达目标时间
+     *
+     * @param targetMillis 目标时间，单位毫秒
+     * @param timeSource   时间源
+     * @return 等待结束时的当前时间，不小于目标时间
+     */
+    long waitUntil(long targetMillis, TimeSource timeSource);
+}
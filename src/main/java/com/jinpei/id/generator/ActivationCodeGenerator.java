@@ -1,6 +1,17 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.algorithm.LuhnChecksum;
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
 import com.jinpei.id.common.utils.IdUtils;
+import com.jinpei.id.common.wait.ParkingWaitStrategy;
+import com.jinpei.id.common.wait.WaitStrategy;
+import com.jinpei.id.generator.base.BitLayout;
+import com.jinpei.id.generator.base.DecodedId;
+import com.jinpei.id.generator.base.HybridLogicalClock;
+import com.jinpei.id.generator.base.SequenceState;
+import com.jinpei.id.generator.base.ShopCodeCache;
+import com.jinpei.id.generator.base.ShopKey;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -26,6 +37,36 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class ActivationCodeGenerator {
+    /**
+     * 字段下标：店铺编码
+     */
+    public static final int SHOP_FIELD = 0;
+
+    /**
+     * 字段下标：时间戳（秒，相对起始时间）
+     */
+    public static final int TIME_FIELD = 1;
+
+    /**
+     * 字段下标：机器编号
+     */
+    public static final int MACHINE_FIELD = 2;
+
+    /**
+     * 字段下标：序号
+     */
+    public static final int SEQUENCE_FIELD = 3;
+
+    /**
+     * 字段下标：激活码校验码
+     */
+    public static final int VALIDATION_FIELD = 4;
+
+    /**
+     * 字段下标：卡号校验码
+     */
+    public static final int CARD_ID_FIELD = 5;
+
 
     /**
      * 字符字典
@@ -58,19 +99,39 @@ public class ActivationCodeGenerator {
     private final int cardIdBits = 4;
 
     /**
-     * 上一次时间戳
+     * 按店铺编码分区的序号状态，不同店铺编码的激活码不会重复，各自拥有独立的序号空间
      */
-    private long lastStamp = -1L;
+    private final SequenceState[] partitions = new SequenceState[16];
 
     /**
-     * 系统编号左移bit数
+     * 混合逻辑时钟，为null时时钟回拨直接拒绝生成ID
      */
-    private int shopOffset = 0;
+    private HybridLogicalClock hybridClock;
+
+    /**
+     * 店铺编号缓存
+     */
+    private ShopCodeCache shopCodeCache = new ShopCodeCache();
+
+    /**
+     * 时间源
+     */
+    private TimeSource timeSource = SystemTimeSource.INSTANCE;
+
+    /**
+     * 序号用尽时等待下一个时间单位的策略
+     */
+    private WaitStrategy waitStrategy = new ParkingWaitStrategy();
 
     /**
-     * 序列
+     * 激活码bit布局
      */
-    private long sequence = System.currentTimeMillis() % 10;
+    private BitLayout layout;
+
+    /**
+     * 系统编号左移bit数
+     */
+    private int shopOffset = 0;
 
     /**
      * 机器编号
@@ -108,11 +169,6 @@ public class ActivationCodeGenerator {
      */
     private long maxCode = 0;
 
-    /**
-     * 最大店铺编号校验码
-     */
-    private long maxShopCode = 0L;
-
     /**
      * 最大卡号校验码
      */
@@ -200,39 +256,62 @@ public class ActivationCodeGenerator {
      * @param shopId 店铺编号
      * @return 12位大写字符串激活码
      */
-    public synchronized String generate(String shopId, Long cardId) {
+    public String generate(String shopId, Long cardId) {
         if (null == shopId || shopId.length() == 0 || null == cardId) {
             throw new IllegalArgumentException("Shop id and card id cannot be null");
         }
 
-        long curStamp = getNewSecond();
-        if (curStamp < lastStamp) {
-            throw new IllegalArgumentException("Clock moved backwards. Refusing to generate id");
+        return generate(shopCodeCache.get(shopId), cardId);
+    }
+
+    /**
+     * 根据预先解析的店铺编号生成激活码，跳过店铺ID的解析
+     *
+     * @param shopKey 店铺编号
+     * @param cardId  卡号
+     * @return 12位大写字符串激活码
+     */
+    public String generate(ShopKey shopKey, Long cardId) {
+        if (null == shopKey || null == cardId) {
+            throw new IllegalArgumentException("Shop key and card id cannot be null");
         }
 
-        if (curStamp == lastStamp) {
-            sequence = (sequence + 1) & maxSequence;
-            if (sequence == 0L) {
-                curStamp = getNextSecond();
+        long shopCode = shopKey.getShopCode();
+        SequenceState state = partitions[(int) shopCode];
+        long curStamp;
+        long sequence;
+        synchronized (state) {
+            long lastStamp = state.getLastStamp();
+            curStamp = getNewSecond();
+            if (curStamp < lastStamp) {
+                curStamp = HybridLogicalClock.borrowStamp(hybridClock, lastStamp,
+                        timeSource.currentTimeMillis(), 1000L);
+            }
+
+            if (curStamp == lastStamp) {
+                sequence = (state.getSequence() + 1) & maxSequence;
+                if (sequence == 0L) {
+                    curStamp = HybridLogicalClock.nextStamp(hybridClock, lastStamp, timeSource, waitStrategy, 1000L);
+                }
+            } else {
+                sequence = timeSource.currentTimeMillis() % 10;
             }
-        } else {
-            sequence = System.currentTimeMillis() % 10;
+            state.setLastStamp(curStamp);
+            state.setSequence(sequence);
         }
 
-        lastStamp = curStamp;
-        long shopCode = IdUtils.getShopCode(shopId, maxShopCode);
         long originId = shopCode << shopOffset
                 | (curStamp - startTimeStamp) << timeOffset
                 | machineId << machineOffset
                 | sequence << sequenceOffset;
 
-        long validationCode = IdUtils.getValidationCode(originId, maxCode);
-        long cardIdCode = IdUtils.getValidationCode(cardId, maxCardIdCode);
+        long validationCode = LuhnChecksum.validationCode(originId, maxCode);
+        long cardIdCode = LuhnChecksum.validationCode(cardId, maxCardIdCode);
         long totalCode = (validationCode << validationOffset) + cardIdCode;
         long originCode = originId + totalCode;
 
         //编码序号
-        int encodeIndex = (int) ((shopCode + System.currentTimeMillis()) % 26);
+        int encodeIndex = (int) ((shopCode + timeSource.currentTimeMillis()) % 26);
         String originCodeString = Long.toString(originCode, 26);
         StringBuilder sb = new StringBuilder();
         sb.append(alphabet[encodeIndex]);
@@ -257,14 +336,23 @@ public class ActivationCodeGenerator {
                 return false;
             }
 
-            Long longCode = getLongId(code);
-            String bitString = Long.toBinaryString(longCode);
-            int bitLength = bitString.length();
+            return shopCodeCache.get(shopId).getShopCode() == layout.get(getLongId(code), SHOP_FIELD);
+        } catch (Exception e) {
+            return false;
+        }
+    }
 
-            long shopCode = IdUtils.getShopCode(shopId, maxShopCode);
-            String shopCodeBitString = bitString.substring(0, bitLength - shopOffset);
-            long parseShopCode = Long.parseLong(shopCodeBitString, 2);
-            return shopCode == parseShopCode;
+    /**
+     * 根据预先解析的店铺编号校验激活码是否合法
+     *
+     * @param shopKey 店铺编号
+     * @param code    激活码
+     * @return boolean 合法返回true，反之false
+     */
+    public boolean validate(ShopKey shopKey, String code) {
+        try {
+            return null != shopKey && validateCode(code)
+                    && shopKey.getShopCode() == layout.get(getLongId(code), SHOP_FIELD);
         } catch (Exception e) {
             return false;
         }
@@ -279,11 +367,8 @@ public class ActivationCodeGenerator {
      */
     public boolean validateCardId(String code, Long cardId) {
         try {
-            Long longCode = getLongId(code);
-            String bitString = Long.toBinaryString(longCode);
-            String cardIdBitString = bitString.substring(bitString.length() - cardIdBits);
-            long parseCardIdCode = Long.parseLong(cardIdBitString, 2);
-            long cardIdCode = IdUtils.getValidationCode(cardId, maxCardIdCode);
+            long parseCardIdCode = layout.get(getLongId(code), CARD_ID_FIELD);
+            long cardIdCode = LuhnChecksum.validationCode(cardId, maxCardIdCode);
 
             return parseCardIdCode == cardIdCode;
         } catch (Exception e) {
@@ -298,16 +383,38 @@ public class ActivationCodeGenerator {
      * @return 解析结果依次是时间戳、机器编码、序列号
      */
     public Long[] parse(String code) {
-        if (!validateCode(code)) {
+        DecodedId decoded = new DecodedId();
+        if (!parse(code, decoded)) {
             return null;
         }
 
-        String bitString = Long.toBinaryString(getLongId(code));
-        int bitLength = bitString.length();
-        long timestamp = Long.parseLong(bitString.substring(bitLength - timeOffset - timeBits, bitString.length() - timeOffset), 2);
-        long machineId = Long.parseLong(bitString.substring(bitLength - machineOffset - machineBits, bitString.length() - machineOffset), 2);
-        long sequence = Long.parseLong(bitString.substring(bitLength - sequenceOffset - sequenceBits, bitString.length() - sequenceOffset), 2);
-        return new Long[]{(timestamp + startTimeStamp) * 1000, machineId, sequence};
+        return new Long[]{decoded.getTimestamp(), decoded.get(MACHINE_FIELD), decoded.get(SEQUENCE_FIELD)};
+    }
+
+    /**
+     * 解析激活码到可以重复使用的解析结果，避免创建Long数组
+     *
+     * @param code    激活码
+     * @param decoded 解析结果，字段下标见{@link #SHOP_FIELD}等常量，时间戳为毫秒
+     * @return 激活码合法返回true，反之false
+     */
+    public boolean parse(String code, DecodedId decoded) {
+        if (!validateCode(code)) {
+            return false;
+        }
+
+        layout.decode(getLongId(code), decoded);
+        decoded.setTimestamp((decoded.get(TIME_FIELD) + startTimeStamp) * 1000);
+        return true;
+    }
+
+    /**
+     * 获取激活码bit布局
+     *
+     * @return bit布局
+     */
+    public BitLayout getLayout() {
+        return layout;
     }
 
     /**
@@ -324,16 +431,19 @@ public class ActivationCodeGenerator {
      * 数据初始化
      */
     private void init() {
-        validationOffset = cardIdBits;
-        sequenceOffset = validationOffset + validationBits;
-        machineOffset = sequenceOffset + sequenceBits;
-        timeOffset = machineOffset + machineBits;
-        shopOffset = timeOffset + timeBits;
+        layout = new BitLayout(4, timeBits, machineBits, sequenceBits, validationBits, cardIdBits);
+        validationOffset = layout.getOffset(VALIDATION_FIELD);
+        sequenceOffset = layout.getOffset(SEQUENCE_FIELD);
+        machineOffset = layout.getOffset(MACHINE_FIELD);
+        timeOffset = layout.getOffset(TIME_FIELD);
+        shopOffset = layout.getOffset(SHOP_FIELD);
         maxSequence = ~(-1L << sequenceBits);
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new SequenceState();
+        }
         maxCode = ~(-1L << validationBits);
         maxCardIdCode = ~(-1 << cardIdBits);
         startTimeStamp = IdUtils.getTimeStampSecond(startTimeString);
-        maxShopCode = 14L;
     }
 
 
@@ -369,21 +479,16 @@ public class ActivationCodeGenerator {
         }
 
         long longId = getLongId(id);
-        String bitString = Long.toBinaryString(longId);
-        int bitLength = bitString.length();
-
-        String codeBitString = bitString.substring(bitLength - validationBits - cardIdBits);
-        String validationCodeBitString = bitString.substring(bitLength - validationBits - cardIdBits, bitLength - cardIdBits);
-        int totalValidationCode = Integer.parseInt(codeBitString, 2);
-        int validationCode = Integer.parseInt(validationCodeBitString, 2);
+        long totalValidationCode = longId & ~(-1L << layout.getOffset(SEQUENCE_FIELD));
+        long validationCode = layout.get(longId, VALIDATION_FIELD);
         long originId = longId - totalValidationCode;
-        long parseValidationCode = IdUtils.getValidationCode(originId, maxCode);
+        long parseValidationCode = LuhnChecksum.validationCode(originId, maxCode);
         if (validationCode != parseValidationCode) {
             return false;
         }
 
-        long timestamp = Long.parseLong(bitString.substring(bitLength - timeBits - timeOffset, bitLength - timeOffset), 2);
-        long currentStamp = System.currentTimeMillis() / 1000 - startTimeStamp;
+        long timestamp = layout.get(longId, TIME_FIELD);
+        long currentStamp = timeSource.currentTimeMillis() / 1000 - startTimeStamp;
         long timeDelta = currentStamp - timestamp;
         return timeDelta > -3600;
     }
@@ -407,26 +512,78 @@ public class ActivationCodeGenerator {
     }
 
     /**
-     * 获取当前时间戳 单位秒
+     * 开启混合逻辑时钟，时钟回拨时在允许的漂移范围内继续生成ID。需要在生成ID之前设置
      *
-     * @return 时间戳（秒）
+     * @param hybridClock 混合逻辑时钟，为null时关闭
      */
-    private long getNewSecond() {
-        return System.currentTimeMillis() / 1000;
+    public void setHybridClock(HybridLogicalClock hybridClock) {
+        this.hybridClock = hybridClock;
     }
 
     /**
-     * 获取下一秒钟
+     * 设置店铺编号缓存，默认缓存4096个店铺。多个生成器可以共享同一个缓存
      *
-     * @return 时间戳（秒）
+     * @param shopCodeCache 店铺编号缓存
+     */
+    public void setShopCodeCache(ShopCodeCache shopCodeCache) {
+        if (null == shopCodeCache) {
+            throw new IllegalArgumentException("Shop code cache cannot be null");
+        }
+
+        this.shopCodeCache = shopCodeCache;
+    }
+
+    /**
+     * 获取店铺编号缓存
+     *
+     * @return 店铺编号缓存
+     */
+    public ShopCodeCache getShopCodeCache() {
+        return shopCodeCache;
+    }
+
+    /**
+     * 设置时间源，默认为系统时间。需要在生成ID之前设置
+     *
+     * @param timeSource 时间源
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
+        }
+
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * 设置序号用尽时的等待策略，默认按剩余时间挂起。需要在生成ID之前设置
+     *
+     * @param waitStrategy 等待策略
      */
-    private long getNextSecond() {
-        long second = getNewSecond();
-        while (second <= lastStamp) {
-            IdUtils.sleep(20);
-            second = getNewSecond();
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        if (null == waitStrategy) {
+            throw new IllegalArgumentException("Wait strategy cannot be null");
         }
-        return second;
+
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 获取序号用尽时的等待策略
+     *
+     * @return 等待策略
+     */
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * 获取当前时间戳 单位秒
+     *
+     * @return 时间戳（秒）
+     */
+    private long getNewSecond() {
+        return timeSource.currentTimeMillis() / 1000;
     }
 
     /**
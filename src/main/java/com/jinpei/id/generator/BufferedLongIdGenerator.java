@@ -0,0 +1,308 @@
+package com.jinpei.id.generator;
+
+import com.jinpei.id.common.concurrent.PaddedAtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 带环形缓冲区的Long类型ID生成器，ID格式与{@link LongIdGenerator}完全相同。
+ * <p>
+ * 预先生成一批ID放到长度为2的幂的环形数组中，由后台线程负责填充：
+ * 1. 可用ID数低于阈值（容量 * paddingFactor / 100）时后台线程把环形数组补满，空闲的毫秒都用于填充；
+ * 2. 消费者通过CAS推进读指针领取ID，获取ID只是一次数组读取，不需要读时钟也不需要加锁；
+ * 3. 环形数组为空时直接退化为{@link LongIdGenerator}的同步生成，与后台线程共用同一个序号状态，ID不会重复。
+ * 因为ID是提前生成的，所以可以承受超过每毫秒4096个的突发流量，代价是ID中的时间戳会早于实际领取时间。
+ * <p>
+ * 后台线程在第一次获取ID时启动，因此{@link #setTimeSource}、{@link #setHybridClock}需要在获取ID之前设置。
+ * 不再使用时调用{@link #close()}停止后台线程。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+@Slf4j
+public class BufferedLongIdGenerator extends LongIdGenerator implements AutoCloseable {
+    /**
+     * 默认的填充阈值百分比
+     */
+    private static final int DEFAULT_PADDING_FACTOR = 50;
+
+    /**
+     * 后台线程空闲时的检查间隔
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 环形数组
+     */
+    private final long[] slots;
+
+    /**
+     * 下标掩码
+     */
+    private final int indexMask;
+
+    /**
+     * 可用ID数低于该值时触发填充
+     */
+    private final int paddingThreshold;
+
+    /**
+     * 读指针，下一个可领取的位置
+     */
+    private final PaddedAtomicLong head = new PaddedAtomicLong();
+
+    /**
+     * 写指针，下一个待填充的位置
+     */
+    private final PaddedAtomicLong tail = new PaddedAtomicLong();
+
+    /**
+     * 环形数组为空、退化为同步生成的次数
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * 填充线程
+     */
+    private volatile Thread producer;
+
+    /**
+     * 是否正在运行
+     */
+    private volatile boolean running = true;
+
+    /**
+     * 构造函数
+     *
+     * @param machineId  机器编号
+     * @param bufferSize 环形数组容量，必须是2的幂
+     */
+    public BufferedLongIdGenerator(Long machineId, int bufferSize) {
+        this(machineId, bufferSize, DEFAULT_PADDING_FACTOR);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param machineId     机器编号
+     * @param bufferSize    环形数组容量，必须是2的幂
+     * @param paddingFactor 填充阈值百分比，可用ID数低于容量的该百分比时触发填充，范围(0, 100)
+     */
+    public BufferedLongIdGenerator(Long machineId, int bufferSize, int paddingFactor) {
+        this(machineId, 10, 12, bufferSize, paddingFactor);
+    }
+
+    /**
+     * 全参构造函数
+     *
+     * @param machineId     机器编号
+     * @param machineBits   机器编号bit数
+     * @param sequenceBits  每毫秒序列bit数
+     * @param bufferSize    环形数组容量，必须是2的幂
+     * @param paddingFactor 填充阈值百分比，可用ID数低于容量的该百分比时触发填充，范围(0, 100)
+     * @see LongIdGenerator#LongIdGenerator(Long, int, int)
+     */
+    public BufferedLongIdGenerator(Long machineId, int machineBits, int sequenceBits, int bufferSize,
+                                   int paddingFactor) {
+        super(machineId, machineBits, sequenceBits);
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size should be a power of 2");
+        }
+        if (paddingFactor <= 0 || paddingFactor >= 100) {
+            throw new IllegalArgumentException("Padding factor should be in (0, 100)");
+        }
+
+        this.slots = new long[bufferSize];
+        this.indexMask = bufferSize - 1;
+        this.paddingThreshold = (int) ((long) bufferSize * paddingFactor / 100);
+    }
+
+    /**
+     * 生成ID，从环形数组领取，环形数组为空时同步生成
+     *
+     * @return long ID
+     */
+    @Override
+    public long nextId() {
+        startProducer();
+        for (; ; ) {
+            long current = head.get();
+            long available = tail.get() - current;
+            if (available <= 0) {
+                missCount.increment();
+                LockSupport.unpark(producer);
+                return super.nextId();
+            }
+
+            //先读后CAS，CAS成功说明读取期间该位置没有被后台线程覆盖
+            long id = slots[(int) current & indexMask];
+            if (head.compareAndSet(current, current + 1)) {
+                if (available == paddingThreshold) {
+                    LockSupport.unpark(producer);
+                }
+                return id;
+            }
+        }
+    }
+
+    /**
+     * 批量生成ID，优先从环形数组领取一段连续的ID，不足部分同步生成
+     *
+     * @param ids    ID数组
+     * @param offset 写入的起始下标
+     * @param length ID数量
+     */
+    @Override
+    public void generate(long[] ids, int offset, int length) {
+        checkRange(ids, offset, length);
+        int count = claim(ids, offset, length);
+        if (count < length) {
+            missCount.increment();
+            super.generate(ids, offset + count, length - count);
+        }
+    }
+
+    /**
+     * 非阻塞地批量生成ID，优先从环形数组领取，不足部分只在当前毫秒内同步生成
+     *
+     * @param ids    ID数组
+     * @param offset 写入的起始下标
+     * @param length 最多生成的ID数量
+     * @return 实际生成的ID数量
+     */
+    @Override
+    public int tryGenerate(long[] ids, int offset, int length) {
+        checkRange(ids, offset, length);
+        int count = claim(ids, offset, length);
+        if (count < length) {
+            missCount.increment();
+            count += super.tryGenerate(ids, offset + count, length - count);
+        }
+        return count;
+    }
+
+    /**
+     * 获取环形数组中可领取的ID数
+     *
+     * @return 可领取的ID数
+     */
+    public long getAvailable() {
+        return Math.max(0L, tail.get() - head.get());
+    }
+
+    /**
+     * 获取环形数组为空、退化为同步生成的次数
+     *
+     * @return 次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 停止后台填充线程，之后的请求都会退化为同步生成
+     */
+    @Override
+    public void close() {
+        running = false;
+        Thread thread = producer;
+        if (null != thread) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 从环形数组领取一段连续的ID
+     *
+     * @param ids    ID数组
+     * @param offset 写入的起始下标
+     * @param length 最多领取的ID数量
+     * @return 实际领取的ID数量
+     */
+    private int claim(long[] ids, int offset, int length) {
+        startProducer();
+        int count;
+        for (; ; ) {
+            long current = head.get();
+            count = (int) Math.min(length, tail.get() - current);
+            if (count <= 0) {
+                count = 0;
+                break;
+            }
+
+            copy(current, ids, offset, count);
+            if (head.compareAndSet(current, current + count)) {
+                break;
+            }
+        }
+
+        LockSupport.unpark(producer);
+        return count;
+    }
+
+    /**
+     * 第一次获取ID时启动后台填充线程
+     */
+    private void startProducer() {
+        if (null == producer) {
+            synchronized (slots) {
+                if (null == producer) {
+                    Thread thread = new Thread(this::produce, "id-generator-ring-producer");
+                    thread.setDaemon(true);
+                    thread.start();
+                    producer = thread;
+                }
+            }
+        }
+    }
+
+    /**
+     * 后台填充，可用ID数低于阈值时把环形数组补满
+     */
+    private void produce() {
+        while (running) {
+            long writeIndex = tail.get();
+            int free = (int) (slots.length - (writeIndex - head.get()));
+            if (slots.length - free >= paddingThreshold) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                //环形数组末尾放不下时分两段填充
+                int index = (int) writeIndex & indexMask;
+                int firstPart = Math.min(free, slots.length - index);
+                super.generate(slots, index, firstPart);
+                if (free > firstPart) {
+                    super.generate(slots, 0, free - firstPart);
+                }
+                tail.set(writeIndex + free);
+            } catch (RuntimeException e) {
+                //时间源等抛出的任何异常都不能让后台线程退出，否则环形数组不再补充
+                log.error("Cannot fill id ring buffer", e);
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        log.debug("Id ring buffer producer stopped");
+    }
+
+    /**
+     * 从环形数组复制一段连续的ID
+     *
+     * @param from   起始读指针
+     * @param ids    ID数组
+     * @param offset 写入的起始下标
+     * @param count  ID数量
+     */
+    private void copy(long from, long[] ids, int offset, int count) {
+        int index = (int) from & indexMask;
+        int firstPart = Math.min(count, slots.length - index);
+        System.arraycopy(slots, index, ids, offset, firstPart);
+        if (count > firstPart) {
+            System.arraycopy(slots, 0, ids, offset + firstPart, count - firstPart);
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.algorithm.LuhnChecksum;
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
 import com.jinpei.id.common.utils.IdUtils;
+import com.jinpei.id.common.wait.ParkingWaitStrategy;
+import com.jinpei.id.common.wait.WaitStrategy;
+import com.jinpei.id.generator.base.BitLayout;
 import com.jinpei.id.generator.base.CardIdGeneratorable;
+import com.jinpei.id.generator.base.DecodedId;
+import com.jinpei.id.generator.base.HybridLogicalClock;
+import com.jinpei.id.generator.base.SequenceState;
+import com.jinpei.id.generator.base.StampCheckpoint;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -25,6 +35,31 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @SuppressWarnings("UnusedAssignment")
 public class CardIdGenerator implements CardIdGeneratorable {
+    /**
+     * 字段下标：系统编号
+     */
+    public static final int SYSTEM_FIELD = 0;
+
+    /**
+     * 字段下标：时间戳（秒，相对起始时间）
+     */
+    public static final int TIME_FIELD = 1;
+
+    /**
+     * 字段下标：机器编号
+     */
+    public static final int MACHINE_FIELD = 2;
+
+    /**
+     * 字段下标：序号
+     */
+    public static final int SEQUENCE_FIELD = 3;
+
+    /**
+     * 字段下标：校验码
+     */
+    public static final int VALIDATION_FIELD = 4;
+
     /**
      * 时间bit数，时间的单位为秒，31 bit位时间可以表示68年
      */
@@ -46,9 +81,29 @@ public class CardIdGenerator implements CardIdGeneratorable {
     private int validationBits = 7;
 
     /**
-     * 上一次时间戳
+     * 按系统编号分区的序号状态，不同系统编号的卡号不会重复，各自拥有独立的序号空间
      */
-    private long lastStamp = -1L;
+    private final SequenceState[] partitions = new SequenceState[8];
+
+    /**
+     * 混合逻辑时钟，为null时时钟回拨直接拒绝生成ID
+     */
+    private HybridLogicalClock hybridClock;
+
+    /**
+     * 时间源
+     */
+    private TimeSource timeSource = SystemTimeSource.INSTANCE;
+
+    /**
+     * 序号用尽时等待下一个时间单位的策略
+     */
+    private WaitStrategy waitStrategy = new ParkingWaitStrategy();
+
+    /**
+     * 时间戳检查点，为null时不记录
+     */
+    private StampCheckpoint checkpoint;
 
     /**
      * 系统编号,默认为1
@@ -56,14 +111,14 @@ public class CardIdGenerator implements CardIdGeneratorable {
     private long defaultSystem = 1L;
 
     /**
-     * 系统编号左移bit数
+     * 卡号bit布局
      */
-    private int systemOffset = 0;
+    private BitLayout layout;
 
     /**
-     * 序列
+     * 系统编号左移bit数
      */
-    private long sequence = 0L;
+    private int systemOffset = 0;
 
     /**
      * 机器编号
@@ -193,31 +248,43 @@ public class CardIdGenerator implements CardIdGeneratorable {
      * @param system 系统编号
      * @return 16位卡号
      */
-    public synchronized long generate(long system) {
+    public long generate(long system) {
         if (system < 1 || system > 7) {
             throw new IllegalArgumentException("The system must be in [1, 7]");
         }
 
-        long curStamp = getCurrentSecond();
-        if (curStamp < lastStamp) {
-            throw new IllegalArgumentException("Clock moved backwards. Refusing to generate id.");
-        }
+        SequenceState state = partitions[(int) system];
+        long curStamp;
+        long sequence;
+        synchronized (state) {
+            long lastStamp = state.getLastStamp();
+            curStamp = getCurrentSecond();
+            if (curStamp < lastStamp) {
+                curStamp = HybridLogicalClock.borrowStamp(hybridClock, lastStamp,
+                        timeSource.currentTimeMillis(), 1000L);
+            }
 
-        if (curStamp == lastStamp) {
-            sequence = (sequence + 1) & maxSequence;
-            if (sequence == 0L) {
-                curStamp = getNextSecond();
+            if (curStamp == lastStamp) {
+                sequence = (state.getSequence() + 1) & maxSequence;
+                if (sequence == 0L) {
+                    curStamp = HybridLogicalClock.nextStamp(hybridClock, lastStamp, timeSource, waitStrategy, 1000L);
+                }
+            } else {
+                sequence = 0L;
             }
-        } else {
-            sequence = 0L;
+            if (null != checkpoint) {
+                checkpoint.ensure(curStamp);
+            }
+            state.setLastStamp(curStamp);
+            state.setSequence(sequence);
         }
-        lastStamp = curStamp;
+
         long originId = system << systemOffset
                 | (curStamp - startTimeStamp) << timeOffset
                 | machineId << machineOffset
                 | sequence << sequenceOffset;
 
-        int validationCode = IdUtils.getValidationCode(originId, maxCode);
+        int validationCode = LuhnChecksum.validationCode(originId, maxCode);
         return originId + validationCode;
     }
 
@@ -232,7 +299,8 @@ public class CardIdGenerator implements CardIdGeneratorable {
             return false;
         }
 
-        return validateCode(id, startTimeStamp, timeBits, timeOffset, validationBits, maxCode);
+        return validateCode(id, startTimeStamp, timeBits, timeOffset, validationBits, maxCode,
+                timeSource.currentTimeMillis() / 1000);
     }
 
     /**
@@ -242,55 +310,131 @@ public class CardIdGenerator implements CardIdGeneratorable {
      * @return 解析结果依次是系统编号（system）、时间戳、机器编码、序列号
      */
     public Long[] parse(long id) {
-        if (!validate(id)) {
+        DecodedId decoded = new DecodedId();
+        if (!parse(id, decoded)) {
             return null;
         }
 
-        String bitString = Long.toBinaryString(id);
-        int bitLength = bitString.length();
-        long system = Long.parseLong(bitString.substring(0, bitLength - systemOffset), 2);
-        long timestamp = Long.parseLong(bitString.substring(bitLength - timeOffset - timeBits, bitLength - timeOffset),
-                2);
-        long machineId = Long.parseLong(bitString.substring(bitLength - machineOffset - machineBits,
-                bitLength - machineOffset), 2);
-        long sequence = Long.parseLong(bitString.substring(bitLength - sequenceOffset - sequenceBits,
-                bitLength - sequenceOffset), 2);
-        return new Long[]{system, (timestamp + startTimeStamp) * 1000, machineId, sequence};
+        return new Long[]{decoded.get(SYSTEM_FIELD), decoded.getTimestamp(), decoded.get(MACHINE_FIELD),
+                decoded.get(SEQUENCE_FIELD)};
+    }
+
+    /**
+     * 解析卡号到可以重复使用的解析结果，避免创建Long数组
+     *
+     * @param id      卡号
+     * @param decoded 解析结果，字段下标见{@link #SYSTEM_FIELD}等常量，时间戳为毫秒
+     * @return 卡号合法返回true，反之false
+     */
+    public boolean parse(long id, DecodedId decoded) {
+        if (!validate(id)) {
+            return false;
+        }
+
+        layout.decode(id, decoded);
+        decoded.setTimestamp((decoded.get(TIME_FIELD) + startTimeStamp) * 1000);
+        return true;
+    }
+
+    /**
+     * 获取卡号bit布局
+     *
+     * @return bit布局
+     */
+    public BitLayout getLayout() {
+        return layout;
     }
 
     /**
      * 数据初始化
      */
     private void init() {
-        sequenceOffset = validationBits;
-        machineOffset = sequenceOffset + sequenceBits;
-        timeOffset = machineOffset + machineBits;
-        systemOffset = timeOffset + timeBits;
+        layout = new BitLayout(3, timeBits, machineBits, sequenceBits, validationBits);
+        sequenceOffset = layout.getOffset(SEQUENCE_FIELD);
+        machineOffset = layout.getOffset(MACHINE_FIELD);
+        timeOffset = layout.getOffset(TIME_FIELD);
+        systemOffset = layout.getOffset(SYSTEM_FIELD);
         maxSequence = ~(-1L << sequenceBits);
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new SequenceState();
+        }
         startTimeStamp = IdUtils.getTimeStampSecond(startTimeString);
         maxCode = ~(-1 << validationBits);
     }
 
     /**
-     * 获取当前时间戳 单位秒
+     * 开启混合逻辑时钟，时钟回拨时在允许的漂移范围内继续生成ID。需要在生成ID之前设置
      *
-     * @return 时间戳（秒）
+     * @param hybridClock 混合逻辑时钟，为null时关闭
      */
-    private long getCurrentSecond() {
-        return System.currentTimeMillis() / 1000;
+    public void setHybridClock(HybridLogicalClock hybridClock) {
+        this.hybridClock = hybridClock;
     }
 
     /**
-     * 获取下一秒钟
+     * 设置时间源，默认为系统时间。需要在生成ID之前设置
      *
-     * @return 时间戳（秒）
+     * @param timeSource 时间源
      */
-    private long getNextSecond() {
-        long second = getCurrentSecond();
-        while (second <= lastStamp) {
-            IdUtils.sleep(20);
-            second = getCurrentSecond();
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
         }
-        return second;
+
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * 设置序号用尽时的等待策略，默认按剩余时间挂起。需要在生成ID之前设置
+     *
+     * @param waitStrategy 等待策略
+     */
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        if (null == waitStrategy) {
+            throw new IllegalArgumentException("Wait strategy cannot be null");
+        }
+
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 获取序号用尽时的等待策略
+     *
+     * @return 等待策略
+     */
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * 设置时间戳检查点，只使用大于上次记录的高水位的时间戳。需要在生成卡号之前、设置时间源和等待策略之后设置
+     *
+     * @param checkpoint 时间戳检查点，时间戳单位为秒
+     * @param waitPast   当前时间没有超过高水位时，true表示等待时间超过高水位，false表示拒绝生成卡号直到时间超过高水位
+     */
+    public synchronized void setCheckpoint(StampCheckpoint checkpoint, boolean waitPast) {
+        if (null == checkpoint) {
+            throw new IllegalArgumentException("Checkpoint cannot be null");
+        }
+
+        long recordedStamp = checkpoint.getRecordedStamp();
+        if (waitPast) {
+            waitStrategy.waitUntil((recordedStamp + 1) * 1000, timeSource);
+        }
+        for (SequenceState state : partitions) {
+            synchronized (state) {
+                state.restore(recordedStamp, maxSequence);
+            }
+        }
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * 获取当前时间戳 单位秒
+     *
+     * @return 时间戳（秒）
+     */
+    private long getCurrentSecond() {
+        return timeSource.currentTimeMillis() / 1000;
     }
 }
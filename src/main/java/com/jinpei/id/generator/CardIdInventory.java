@@ -0,0 +1,316 @@
+package com.jinpei.id.generator;
+
+import com.jinpei.id.common.concurrent.PaddedAtomicLong;
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 卡号库存，收集空闲秒内没有用掉的序号。
+ * <p>
+ * {@link CardIdGenerator}每秒只能生成512个卡号，{@link ShortCardIdGenerator}只有256个，某一秒没有用掉的序号就永久浪费了。
+ * 库存由后台线程在流量平稳时生成卡号放到长度为2的幂的环形数组中，促销等突发流量到来时先从库存领取，
+ * 可以承受远超每秒上限的请求：
+ * 1. 领取卡号时通过CAS推进读指针，不需要加锁，库存为空时直接调用生成器同步生成；
+ * 2. 出现同步生成的那一秒后台线程暂停填充，不与实时请求争抢序号；
+ * 3. 库存中的卡号超过最大存放时间后被丢弃，不会发放时间戳过旧的卡号；
+ * 4. 补充量跟随需求：第一次填满之后，只有领取或同步生成了多少卡号才补充多少，过期丢弃的卡号不补充。
+ * 长时间没有请求时库存逐渐过期清空，不会持续消耗每秒的序号与实时请求争抢，之后随请求恢复补充。
+ * <p>
+ * 卡号仍由生成器生成，格式、校验规则与生成器一致，只是卡号中的时间戳会早于实际领取时间。
+ * 后台线程在第一次领取卡号时启动，不再使用时调用{@link #close()}停止。进程重启时库存中未发放的卡号直接丢弃，不会重复。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+@Slf4j
+public class CardIdInventory implements AutoCloseable {
+    /**
+     * 后台线程空闲时的检查间隔
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 卡号生成器
+     */
+    private final LongSupplier generator;
+
+    /**
+     * 环形数组，保存卡号
+     */
+    private final long[] slots;
+
+    /**
+     * 环形数组，保存卡号的生成时间（毫秒）
+     */
+    private final long[] stamps;
+
+    /**
+     * 下标掩码
+     */
+    private final int indexMask;
+
+    /**
+     * 卡号最大存放时间，单位毫秒
+     */
+    private final long maxAgeMillis;
+
+    /**
+     * 读指针，下一个可领取的位置
+     */
+    private final PaddedAtomicLong head = new PaddedAtomicLong();
+
+    /**
+     * 写指针，下一个待填充的位置
+     */
+    private final PaddedAtomicLong tail = new PaddedAtomicLong();
+
+    /**
+     * 从库存领取的次数
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * 库存为空、同步生成的次数
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * 超过最大存放时间被丢弃的卡号数
+     */
+    private final LongAdder expiredCount = new LongAdder();
+
+    /**
+     * 最近一次同步生成所在的秒，后台线程在这一秒内暂停填充
+     */
+    private volatile long lastMissSecond = -1L;
+
+    /**
+     * 时间源
+     */
+    private volatile TimeSource timeSource = SystemTimeSource.INSTANCE;
+
+    /**
+     * 填充线程
+     */
+    private volatile Thread producer;
+
+    /**
+     * 是否正在运行
+     */
+    private volatile boolean running = true;
+
+    /**
+     * 构造函数
+     *
+     * @param generator    卡号生成器，例如cardIdGenerator::generate
+     * @param capacity     库存容量，必须是2的幂
+     * @param maxAgeMillis 卡号最大存放时间，单位毫秒
+     */
+    public CardIdInventory(LongSupplier generator, int capacity, long maxAgeMillis) {
+        if (null == generator) {
+            throw new IllegalArgumentException("Generator cannot be null");
+        }
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity should be a power of 2");
+        }
+        if (maxAgeMillis <= 0) {
+            throw new IllegalArgumentException("Max age should be larger than 0");
+        }
+
+        this.generator = generator;
+        this.slots = new long[capacity];
+        this.stamps = new long[capacity];
+        this.indexMask = capacity - 1;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * 领取卡号，优先从库存领取，库存为空时同步生成
+     *
+     * @return 卡号
+     */
+    public long generate() {
+        startProducer();
+        long now = timeSource.currentTimeMillis();
+        for (; ; ) {
+            long current = head.get();
+            if (tail.get() - current <= 0) {
+                missCount.increment();
+                lastMissSecond = now / 1000;
+                return generator.getAsLong();
+            }
+
+            //先读后CAS，CAS成功说明读取期间该位置没有被后台线程覆盖
+            int index = (int) current & indexMask;
+            long id = slots[index];
+            long stamp = stamps[index];
+            if (head.compareAndSet(current, current + 1)) {
+                if (now - stamp > maxAgeMillis) {
+                    expiredCount.increment();
+                    continue;
+                }
+                hitCount.increment();
+                return id;
+            }
+        }
+    }
+
+    /**
+     * 设置时间源，用于计算卡号的存放时间，默认为系统时间。需要在领取卡号之前设置
+     *
+     * @param timeSource 时间源
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
+        }
+
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * 获取库存容量
+     *
+     * @return 库存容量
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * 获取库存中可领取的卡号数
+     *
+     * @return 可领取的卡号数
+     */
+    public long getAvailable() {
+        return Math.max(0L, tail.get() - head.get());
+    }
+
+    /**
+     * 获取库存水位，可领取的卡号数占容量的比例
+     *
+     * @return 库存水位，范围[0, 1]
+     */
+    public double getFillRatio() {
+        return (double) getAvailable() / slots.length;
+    }
+
+    /**
+     * 获取从库存领取的次数
+     *
+     * @return 次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 获取库存为空、同步生成的次数
+     *
+     * @return 次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 获取超过最大存放时间被丢弃的卡号数
+     *
+     * @return 卡号数
+     */
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * 停止后台填充线程，之后库存领完后都会同步生成
+     */
+    @Override
+    public void close() {
+        running = false;
+        Thread thread = producer;
+        if (null != thread) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CardIdInventory{capacity=" + slots.length + ", available=" + getAvailable() + ", hit=" + getHitCount()
+                + ", miss=" + getMissCount() + ", expired=" + getExpiredCount() + "}";
+    }
+
+    /**
+     * 第一次领取卡号时启动后台填充线程
+     */
+    private void startProducer() {
+        if (null == producer) {
+            synchronized (slots) {
+                if (null == producer) {
+                    Thread thread = new Thread(this::produce, "id-generator-card-inventory");
+                    thread.setDaemon(true);
+                    thread.start();
+                    producer = thread;
+                }
+            }
+        }
+    }
+
+    /**
+     * 后台填充，丢弃过期卡号并按需求补充库存，出现同步生成的那一秒暂停填充
+     */
+    private void produce() {
+        //补充额度，第一次可以填满库存，之后每领取或同步生成一个卡号增加一个，最多为库存容量
+        long refillBudget = slots.length;
+        long lastDemand = 0L;
+        while (running) {
+            long now = timeSource.currentTimeMillis();
+            evictExpired(now);
+            long demand = hitCount.sum() + missCount.sum();
+            refillBudget = Math.min(slots.length, refillBudget + demand - lastDemand);
+            lastDemand = demand;
+            long writeIndex = tail.get();
+            if (refillBudget <= 0 || writeIndex - head.get() >= slots.length || now / 1000 == lastMissSecond) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                int index = (int) writeIndex & indexMask;
+                slots[index] = generator.getAsLong();
+                stamps[index] = timeSource.currentTimeMillis();
+                tail.set(writeIndex + 1);
+                refillBudget--;
+            } catch (RuntimeException e) {
+                //生成器的任何异常都不能让后台线程退出，否则库存不再补充
+                log.error("Cannot fill card id inventory", e);
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        log.debug("Card id inventory producer stopped");
+    }
+
+    /**
+     * 从读指针开始丢弃超过最大存放时间的卡号
+     *
+     * @param now 当前时间（毫秒）
+     */
+    private void evictExpired(long now) {
+        for (; ; ) {
+            long current = head.get();
+            if (tail.get() - current <= 0 || now - stamps[(int) current & indexMask] <= maxAgeMillis) {
+                return;
+            }
+
+            if (head.compareAndSet(current, current + 1)) {
+                expiredCount.increment();
+            }
+        }
+    }
+}
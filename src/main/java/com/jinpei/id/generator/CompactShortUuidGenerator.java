@@ -0,0 +1,267 @@
+package com.jinpei.id.generator;
+
+import com.jinpei.id.common.concurrent.PaddedAtomicLong;
+import com.jinpei.id.common.random.EntropySource;
+import com.jinpei.id.common.random.SecureRandomEntropySource;
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
+
+import java.util.Arrays;
+
+/**
+ * 生成17位的紧凑短UUID，用于数据量很大、对索引大小敏感的表，比22位短UUID节省约25%的索引空间。
+ * 字符编码与{@link ShortUuidGenerator}相同，57个字符，排除掉1、l和I，0和o易混字符。
+ * <p>
+ * 96bit值用高32bit（high）和低64bit（low）两个long表示，编码时拆成3个32bit分段，
+ * 3次除以57^5得到低15位字符，剩余的值小于57^2，不使用BigInteger。
+ * <p>
+ * 1. {@link #generate()}：96bit全部为随机数。生成n个ID的碰撞概率约为n^2/2^97，
+ * 10亿个约为6.3*10^-12，1万亿个约为6.3*10^-6；
+ * 2. {@link #generateOrdered()}：字符串顺序与生成顺序一致，结构如下：
+ * +=========================================
+ * | 44bit 毫秒时间戳 | 12bit序号 | 40bit随机数 |
+ * +=========================================
+ * 44bit毫秒时间戳可以使用到2527年。同一生成器生成的ID不会重复；不同节点同一毫秒生成的ID需要序号和40bit随机数都相同才会碰撞。
+ * 每毫秒跨节点共生成1000个ID时，约有5*10^5对ID，其中约1/1024的序号相同，序号相同的一对再以2^-40的概率碰撞，
+ * 每毫秒的碰撞概率约为4*10^-10，一天约为3*10^-2 ~ 4*10^-2，即大约一个月就会出现一次碰撞。
+ * 多节点大量生成时应使用随机模式，或者由数据库唯一索引兜底并在冲突时重试。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class CompactShortUuidGenerator {
+    /**
+     * 57^5，小于2^30，余数左移32位后仍在long范围内
+     */
+    private static final long RADIX_POW5 = 57L * 57 * 57 * 57 * 57;
+
+    /**
+     * 32bit分段掩码
+     */
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    /**
+     * 紧凑短UUID长度，57^17 > 2^96
+     */
+    private static final int COMPACT_LENGTH = 17;
+
+    /**
+     * 有序模式序号的最大值，12bit
+     */
+    private static final long MAX_ORDERED_SEQUENCE = 0xFFFL;
+
+    /**
+     * 有序模式毫秒切换时起始序号的随机范围，为同一毫秒内的后续序号保留空间
+     */
+    private static final int ORDERED_SEQUENCE_RANDOM_BOUND = 1 << 10;
+
+    /**
+     * 有序模式随机数掩码，40bit
+     */
+    private static final long ORDERED_RANDOM_MASK = (1L << 40) - 1;
+
+    /**
+     * 可用字符编码，与{@link ShortUuidGenerator}相同
+     */
+    private final char[] alphabet = "23456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+
+    /**
+     * 字符到数值的反查表，非法字符为-1
+     */
+    private final byte[] alphabetIndexes = new byte[128];
+
+    /**
+     * 进制
+     */
+    private final int radix;
+
+    /**
+     * 随机数来源
+     */
+    private EntropySource entropySource = SecureRandomEntropySource.INSTANCE;
+
+    /**
+     * 时间源
+     */
+    private TimeSource timeSource = SystemTimeSource.INSTANCE;
+
+    /**
+     * 有序模式的状态，高位为上一次毫秒时间戳，低12bit为序号
+     */
+    private final PaddedAtomicLong orderedState = new PaddedAtomicLong();
+
+    public CompactShortUuidGenerator() {
+        radix = alphabet.length;
+        Arrays.fill(alphabetIndexes, (byte) -1);
+        for (int i = 0; i < alphabet.length; i++) {
+            alphabetIndexes[alphabet[i]] = (byte) i;
+        }
+    }
+
+    /**
+     * 生成17位的随机紧凑短UUID
+     *
+     * @return 紧凑短UUID
+     */
+    public String generate() {
+        return encode(entropySource.nextLong() & INT_MASK, entropySource.nextLong());
+    }
+
+    /**
+     * 生成按时间有序的17位紧凑短UUID，同一毫秒内12bit序号自增，序号用尽或时钟回拨时时间戳在上一次的基础上前进，保证单调递增。
+     * 顺序按字节比较，MySQL中列需要使用_bin排序规则或二进制类型存储
+     *
+     * @return 紧凑短UUID
+     */
+    public String generateOrdered() {
+        long next;
+        for (; ; ) {
+            long current = orderedState.get();
+            long lastStamp = current >>> 12;
+            long curStamp = timeSource.currentTimeMillis();
+            if (curStamp > lastStamp) {
+                next = curStamp << 12 | (entropySource.nextLong() & (ORDERED_SEQUENCE_RANDOM_BOUND - 1));
+            } else if ((current & MAX_ORDERED_SEQUENCE) < MAX_ORDERED_SEQUENCE) {
+                next = current + 1;
+            } else {
+                next = (lastStamp + 1) << 12;
+            }
+
+            if (orderedState.compareAndSet(current, next)) {
+                break;
+            }
+        }
+
+        //next为44bit时间戳+12bit序号，共56bit，高32bit放入high，低24bit放在low的最高位
+        long high = next >>> 24;
+        long low = next << 40 | (entropySource.nextLong() & ORDERED_RANDOM_MASK);
+        return encode(high, low);
+    }
+
+    /**
+     * 解析有序紧凑短UUID中的毫秒时间戳
+     *
+     * @param compactUuid {@link #generateOrdered()}生成的紧凑短UUID
+     * @return 毫秒时间戳
+     */
+    public long parseTimestamp(String compactUuid) {
+        long[] value = decode(compactUuid);
+        return value[0] << 12 | value[1] >>> 52;
+    }
+
+    /**
+     * 将96bit值编码为17位的紧凑短UUID
+     *
+     * @param high 高32bit，只使用低32位
+     * @param low  低64bit
+     * @return 紧凑短UUID
+     */
+    public String encode(long high, long low) {
+        char[] chars = new char[COMPACT_LENGTH];
+        encode(high, low, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * 将96bit无符号整数转换为57进制，写入调用方提供的数组，不足17位前面补0（默认'2'代表0），不产生任何对象分配
+     *
+     * @param high   高32bit，只使用低32位
+     * @param low    低64bit
+     * @param dst    字符数组
+     * @param offset 写入的起始下标，共写入17个字符
+     */
+    public void encode(long high, long low, char[] dst, int offset) {
+        if (offset < 0 || offset > dst.length - COMPACT_LENGTH) {
+            throw new IllegalArgumentException("The char array has no room for " + COMPACT_LENGTH + " chars");
+        }
+        if (high >>> 32 != 0) {
+            throw new IllegalArgumentException("The high part should be less than 2^32");
+        }
+
+        long limb2 = high;
+        long limb1 = low >>> 32;
+        long limb0 = low & INT_MASK;
+        int position = offset + COMPACT_LENGTH - 1;
+        //3次除以57^5得到低15位字符，剩余的值小于57^2
+        for (int i = 0; i < 3; i++) {
+            long remainder = limb2 % RADIX_POW5;
+            limb2 /= RADIX_POW5;
+            long current = remainder << 32 | limb1;
+            limb1 = current / RADIX_POW5;
+            current = (current % RADIX_POW5) << 32 | limb0;
+            limb0 = current / RADIX_POW5;
+
+            int digits = (int) (current % RADIX_POW5);
+            for (int j = 0; j < 5; j++) {
+                dst[position--] = alphabet[digits % radix];
+                digits /= radix;
+            }
+        }
+
+        int digits = (int) limb0;
+        dst[position--] = alphabet[digits % radix];
+        dst[position] = alphabet[digits / radix];
+    }
+
+    /**
+     * 将17位的紧凑短UUID解码为96bit值
+     *
+     * @param compactUuid 紧凑短UUID
+     * @return 长度为2的数组，第0个元素为高32bit，第1个元素为低64bit
+     */
+    public long[] decode(String compactUuid) {
+        if (null == compactUuid || compactUuid.length() != COMPACT_LENGTH) {
+            throw new IllegalArgumentException("The compact uuid should be " + COMPACT_LENGTH + " chars");
+        }
+
+        long limb2 = 0L;
+        long limb1 = 0L;
+        long limb0 = 0L;
+        for (int i = 0; i < COMPACT_LENGTH; i++) {
+            char character = compactUuid.charAt(i);
+            int digit = character < 128 ? alphabetIndexes[character] : -1;
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid compact uuid char " + character);
+            }
+
+            long current = limb0 * radix + digit;
+            limb0 = current & INT_MASK;
+            current = limb1 * radix + (current >>> 32);
+            limb1 = current & INT_MASK;
+            current = limb2 * radix + (current >>> 32);
+            limb2 = current & INT_MASK;
+            if (current >>> 32 != 0) {
+                throw new IllegalArgumentException("The compact uuid is out of 96 bits range");
+            }
+        }
+
+        return new long[]{limb2, limb1 << 32 | limb0};
+    }
+
+    /**
+     * 设置时间源，默认为系统时间。需要在生成之前设置
+     *
+     * @param timeSource 时间源
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
+        }
+
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * 设置随机数来源，默认为共享的SecureRandom。
+     * 多线程大量生成时可以使用{@link com.jinpei.id.common.random.ChaCha20EntropySource}避免争用。需要在生成之前设置
+     *
+     * @param entropySource 随机数来源
+     */
+    public void setEntropySource(EntropySource entropySource) {
+        if (null == entropySource) {
+            throw new IllegalArgumentException("Entropy source cannot be null");
+        }
+
+        this.entropySource = entropySource;
+    }
+}
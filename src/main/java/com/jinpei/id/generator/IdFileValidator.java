@@ -0,0 +1,332 @@
+package com.jinpei.id.generator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongPredicate;
+
+/**
+ * ID文件校验器，用于对账时批量校验合作方文件中的卡号、订单号，文件每行一个十进制ID。
+ * <p>
+ * 文件按行边界切分成若干块，每块单独内存映射后提交到ForkJoinPool并行校验：
+ * 1. 直接从映射的字节中解析数字，不创建String，也不经过BufferedReader；
+ * 2. 每个ID交给生成器原有的校验规则，例如{@code cardIdGenerator::validate}，
+ * 店铺卡号、订单号按店铺校验，例如{@code id -> orderIdGenerator.validate(shopId, id)}；
+ * 3. 空行、非数字、超出long范围的行都算校验失败，行尾的\r会被忽略。
+ * 校验结果是按行号（从0开始）标记失败行的{@link BitSet}，或者是列出失败行号和内容的报告文件。
+ * 单个文件可以超过2GB，每块单独映射；超过{@link Integer#MAX_VALUE}行时只能生成报告文件，报告中的行号是long。
+ * 校验规则需要是线程安全的，所有生成器的校验方法都满足。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class IdFileValidator {
+    /**
+     * 每块最小字节数
+     */
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+
+    /**
+     * 每块最大字节数
+     */
+    private static final int MAX_CHUNK_BYTES = 1 << 26;
+
+    /**
+     * 超过该位数的行一定超出long范围
+     */
+    private static final int MAX_DIGITS = 19;
+
+    /**
+     * 校验规则
+     */
+    private final LongPredicate validator;
+
+    /**
+     * 执行校验的线程池
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * 每块最小字节数
+     */
+    private final int minChunkBytes;
+
+    /**
+     * 构造函数，使用公共ForkJoinPool
+     *
+     * @param validator 校验规则
+     */
+    public IdFileValidator(LongPredicate validator) {
+        this(validator, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param validator 校验规则
+     * @param pool      执行校验的线程池
+     */
+    public IdFileValidator(LongPredicate validator, ForkJoinPool pool) {
+        this(validator, pool, MIN_CHUNK_BYTES);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param validator     校验规则
+     * @param pool          执行校验的线程池
+     * @param minChunkBytes 每块最小字节数
+     */
+    IdFileValidator(LongPredicate validator, ForkJoinPool pool, int minChunkBytes) {
+        if (null == validator || null == pool) {
+            throw new IllegalArgumentException("Validator and pool cannot be null");
+        }
+        if (minChunkBytes <= 0 || minChunkBytes > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException("Chunk bytes should be in (0, " + MAX_CHUNK_BYTES + "]");
+        }
+
+        this.validator = validator;
+        this.pool = pool;
+        this.minChunkBytes = minChunkBytes;
+    }
+
+    /**
+     * 校验文件，{@link BitSet}的下标是int，超过{@link Integer#MAX_VALUE}行的文件需要使用{@link #validate(Path, Path)}
+     *
+     * @param file 文件路径
+     * @return 校验失败的行号（从0开始）
+     * @throws IOException 读文件失败
+     */
+    public BitSet validate(Path file) throws IOException {
+        List<Chunk> chunks = validate(file, false);
+        long lines = 0;
+        for (Chunk chunk : chunks) {
+            lines += chunk.lines;
+        }
+        if (lines > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("File has " + lines + " lines, more than " + Integer.MAX_VALUE
+                    + " lines cannot be reported as BitSet, use validate(file, report) instead");
+        }
+
+        BitSet failures = new BitSet();
+        long line = 0;
+        for (Chunk chunk : chunks) {
+            for (int i = chunk.failures.nextSetBit(0); i >= 0; i = chunk.failures.nextSetBit(i + 1)) {
+                failures.set((int) (line + i));
+            }
+            line += chunk.lines;
+        }
+        return failures;
+    }
+
+    /**
+     * 校验文件并把失败的行写入报告文件，报告每行是"行号\t内容"，行号从1开始，报告文件已存在时覆盖
+     *
+     * @param file   文件路径
+     * @param report 报告文件路径
+     * @return 校验失败的行数
+     * @throws IOException 读写文件失败
+     */
+    public long validate(Path file, Path report) throws IOException {
+        List<Chunk> chunks = validate(file, true);
+        long failureCount = 0;
+        try (FileChannel channel = FileChannel.open(report, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            StringBuilder sb = new StringBuilder();
+            long line = 0;
+            for (Chunk chunk : chunks) {
+                int index = 0;
+                for (int i = chunk.failures.nextSetBit(0); i >= 0; i = chunk.failures.nextSetBit(i + 1)) {
+                    sb.append(line + i + 1).append('\t').append(chunk.failedLines.get(index++)).append('\n');
+                }
+                failureCount += index;
+                line += chunk.lines;
+                ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                sb.setLength(0);
+            }
+            channel.force(true);
+        }
+        return failureCount;
+    }
+
+    /**
+     * 切分文件并行校验，按文件顺序返回每块的结果
+     *
+     * @param file        文件路径
+     * @param keepContent 是否保留失败行的内容
+     * @return 每块的校验结果
+     * @throws IOException 读文件失败
+     */
+    private List<Chunk> validate(Path file, boolean keepContent) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkBytes = Math.min(MAX_CHUNK_BYTES,
+                    Math.max(minChunkBytes, size / (pool.getParallelism() * 4L) + 1));
+            List<ChunkTask> tasks = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = start + chunkBytes >= size ? size : nextLine(channel, start + chunkBytes - 1, size);
+                ChunkTask task = new ChunkTask(channel, start, end, keepContent);
+                pool.execute(task);
+                tasks.add(task);
+                start = end;
+            }
+
+            List<Chunk> chunks = new ArrayList<>(tasks.size());
+            try {
+                for (ChunkTask task : tasks) {
+                    chunks.add(task.join());
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return chunks;
+        }
+    }
+
+    /**
+     * 从给定位置开始查找换行符
+     *
+     * @param channel  文件通道
+     * @param position 起始位置
+     * @param size     文件大小
+     * @return 换行符之后的位置，没有换行符时返回文件大小，块不能超过{@link #MAX_CHUNK_BYTES}
+     * @throws IOException 读文件失败
+     */
+    private long nextLine(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        long limit = Math.min(size, position + MAX_CHUNK_BYTES / 2);
+        while (position < limit) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+
+        if (position < size) {
+            throw new IllegalArgumentException("Line is too long at position " + position);
+        }
+        return size;
+    }
+
+    /**
+     * 一块的校验结果
+     */
+    private static final class Chunk {
+        /**
+         * 行数
+         */
+        private int lines;
+
+        /**
+         * 块内校验失败的行号
+         */
+        private final BitSet failures = new BitSet();
+
+        /**
+         * 校验失败的行内容，只在生成报告时保留
+         */
+        private final List<String> failedLines = new ArrayList<>();
+    }
+
+    /**
+     * 校验一块的任务
+     */
+    private final class ChunkTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+
+        private final long start;
+
+        private final long end;
+
+        private final boolean keepContent;
+
+        ChunkTask(FileChannel channel, long start, long end, boolean keepContent) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.keepContent = keepContent;
+        }
+
+        @Override
+        protected Chunk compute() {
+            MappedByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            Chunk chunk = new Chunk();
+            int limit = buffer.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+
+                int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (!validate(buffer, lineStart, contentEnd)) {
+                    chunk.failures.set(chunk.lines);
+                    if (keepContent) {
+                        byte[] bytes = new byte[contentEnd - lineStart];
+                        for (int i = 0; i < bytes.length; i++) {
+                            bytes[i] = buffer.get(lineStart + i);
+                        }
+                        chunk.failedLines.add(new String(bytes, StandardCharsets.UTF_8));
+                    }
+                }
+                chunk.lines++;
+                lineStart = lineEnd + 1;
+            }
+            return chunk;
+        }
+
+        /**
+         * 从映射的字节中解析一行数字并校验
+         *
+         * @param buffer 映射的字节
+         * @param from   行起始下标
+         * @param to     行结束下标（不含）
+         * @return 合法返回true，反之false
+         */
+        private boolean validate(MappedByteBuffer buffer, int from, int to) {
+            if (from >= to || to - from > MAX_DIGITS) {
+                return false;
+            }
+
+            long id = 0;
+            for (int i = from; i < to; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9 || id > (Long.MAX_VALUE - digit) / 10) {
+                    return false;
+                }
+                id = id * 10 + digit;
+            }
+            return validator.test(id);
+        }
+    }
+}
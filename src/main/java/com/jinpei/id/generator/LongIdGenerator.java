@@ -1,9 +1,17 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
 import com.jinpei.id.common.utils.IdUtils;
+import com.jinpei.id.common.wait.BusySpinWaitStrategy;
+import com.jinpei.id.common.wait.WaitStrategy;
+import com.jinpei.id.generator.base.HybridLogicalClock;
+import com.jinpei.id.generator.base.StampCheckpoint;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Random;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Long类型ID生成器。
@@ -17,6 +25,7 @@ import java.util.Random;
  * 10 bit机器编号支持1024台负载
  * <p>
  * 即ID生成最大支持1024台负载，每台负载每毫秒可以生成4096个ID，这样每台负载每秒可以产生40万ID。
+ * 机器编号和序号的bit位数可以通过全参构造函数调整，两者之和固定为22位，时间戳仍为42位。
  *
  * @author liuzhaoming
  * @date 2017/11/23
@@ -28,32 +37,43 @@ public class LongIdGenerator {
     /**
      * 起始的时间戳, 2014-01-01 00:00:00，为了统一为19位，起始时间戳不能太近，否则ID就会为18位
      */
-    private final long startStamp = IdUtils.getTimeStampMill("2014-01-01 00:00:00");
+    protected final long startStamp = IdUtils.getTimeStampMill("2014-01-01 00:00:00");
+
+    /**
+     * 机器标识和序列号占用的总位数，时间戳固定占用42位
+     */
+    private static final int MACHINE_SEQUENCE_BITS = 22;
+
+    /**
+     * 序列号最少占用的位数，毫秒切换时起始序号取16以内的随机数
+     */
+    private static final int MIN_SEQUENCE_BITS = 4;
 
     /**
      * 序列号占用的位数
      */
-    private final long sequenceBit = 12;
+    protected final long sequenceBit;
     /**
      * 机器标识占用的位数
      */
-    private final long machineBit = 10;
+    private final long machineBit;
 
     /**
      * 每一部分的最大值
      */
-    private final long maxSequence = ~(-1L << sequenceBit);
+    protected final long maxSequence;
+    protected final long maxMachineId;
 
     /**
      * 每一部分向左的位移
      */
-    private final long machineLeft = sequenceBit;
-    private final long timestampLeft = sequenceBit + machineBit;
+    protected final long machineLeft;
+    protected final long timestampLeft;
 
     /**
      * 机器标识
      */
-    private final long machineId;
+    protected final long machineId;
 
     /**
      * 序列号,12 bit序列号支持1毫秒产生4096个自增序列id
@@ -67,13 +87,69 @@ public class LongIdGenerator {
 
     private final Random random = new Random();
 
+    /**
+     * 混合逻辑时钟，为null时时钟回拨直接拒绝生成ID
+     */
+    protected HybridLogicalClock hybridClock;
+
+    /**
+     * 时间源
+     */
+    protected TimeSource timeSource = SystemTimeSource.INSTANCE;
+
+    /**
+     * 等待策略使用的时间源，通过{@link #getCurrentMill()}获取时间，子类覆盖该方法后等待也使用覆盖后的时间
+     */
+    private final TimeSource currentMillSource = this::getCurrentMill;
+
+    /**
+     * 序号用尽时等待下一个时间单位的策略
+     */
+    protected WaitStrategy waitStrategy = new BusySpinWaitStrategy();
+
+    /**
+     * 时间戳检查点，为null时不记录
+     */
+    protected StampCheckpoint checkpoint;
+
     /**
      * 最小ID 19位
      */
     private static final long MIN_ID = 1000000000000000000L;
 
     public LongIdGenerator(Long machineId) {
+        this(machineId, 10, 12);
+    }
+
+    /**
+     * 全参构造函数，便于业务重新分配机器编号和序列号的位数，例如机器数少但单机并发高时用6位机器编号、16位序列号
+     *
+     * @param machineId    机器编号
+     * @param machineBits  机器编号bit数
+     * @param sequenceBits 每毫秒序列bit数，不小于4
+     */
+    public LongIdGenerator(Long machineId, int machineBits, int sequenceBits) {
+        if (machineBits <= 0 || sequenceBits < MIN_SEQUENCE_BITS) {
+            throw new IllegalArgumentException("Machine bits should be larger than 0 and sequence bits should not be less than "
+                    + MIN_SEQUENCE_BITS);
+        }
+        if (machineBits + sequenceBits != MACHINE_SEQUENCE_BITS) {
+            throw new IllegalArgumentException("The sum of machineBits and sequenceBits should be " + MACHINE_SEQUENCE_BITS);
+        }
+
+        long maxMachineId = ~(-1L << machineBits);
+        if (null == machineId || machineId < 0 || machineId > maxMachineId) {
+            throw new IllegalArgumentException("Machine bits is " + machineBits + ", so the machine id should be in [0, "
+                    + maxMachineId + "]");
+        }
+
         this.machineId = machineId;
+        this.sequenceBit = sequenceBits;
+        this.machineBit = machineBits;
+        this.maxSequence = ~(-1L << sequenceBits);
+        this.maxMachineId = maxMachineId;
+        this.machineLeft = sequenceBits;
+        this.timestampLeft = sequenceBits + machineBits;
     }
 
     /**
@@ -81,10 +157,19 @@ public class LongIdGenerator {
      *
      * @return 返回Long ID
      */
-    public synchronized Long generate() {
+    public Long generate() {
+        return nextId();
+    }
+
+    /**
+     * 生成ID，返回基本类型，不产生装箱对象
+     *
+     * @return long ID
+     */
+    public synchronized long nextId() {
         long curStamp = getCurrentMill();
         if (curStamp < lastStamp) {
-            throw new IllegalArgumentException("Clock moved backwards. Refusing to generate id");
+            curStamp = borrowStamp(lastStamp);
         }
 
         if (curStamp == lastStamp) {
@@ -92,17 +177,118 @@ public class LongIdGenerator {
             sequence = (sequence + 1) & maxSequence;
             //同一毫秒的序列数已经达到最大
             if (sequence == 0L) {
-                curStamp = getNextMill();
+                curStamp = getNextMill(lastStamp);
             }
         } else {
             //不同毫秒内，序列号置为16以内的随机数，方便根据尾号hash
             sequence = random.nextInt(16);
         }
 
+        ensureCheckpoint(curStamp);
         lastStamp = curStamp;
         return (curStamp - startStamp) << timestampLeft | machineId << machineLeft | sequence;
     }
 
+    /**
+     * 批量生成ID，在一次加锁内预留一段连续的序号，当前毫秒序号用尽后顺延到后续毫秒
+     *
+     * @param n ID数量
+     * @return 按生成顺序递增的ID数组
+     */
+    public long[] generate(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("The number of ids should be larger than 0");
+        }
+
+        long[] ids = new long[n];
+        generate(ids, 0, n);
+        return ids;
+    }
+
+    /**
+     * 批量生成ID，写入调用方提供的数组，在一次加锁内预留一段连续的序号，当前毫秒序号用尽后顺延到后续毫秒
+     *
+     * @param ids    ID数组
+     * @param offset 写入的起始下标
+     * @param length ID数量
+     */
+    public synchronized void generate(long[] ids, int offset, int length) {
+        checkRange(ids, offset, length);
+        long curStamp = getCurrentMill();
+        if (curStamp < lastStamp) {
+            curStamp = borrowStamp(lastStamp);
+        }
+
+        //不同毫秒内，序列号置为16以内的随机数，方便根据尾号hash
+        long nextSequence = curStamp == lastStamp ? sequence + 1 : random.nextInt(16);
+        int filled = 0;
+        while (filled < length) {
+            //当前毫秒的序列数已经用尽，顺延到下一毫秒
+            if (nextSequence > maxSequence) {
+                curStamp = getNextMill(curStamp);
+                nextSequence = 0L;
+            }
+
+            int count = (int) Math.min(length - filled, maxSequence - nextSequence + 1);
+            fill(ids, offset + filled, curStamp, nextSequence, count);
+            filled += count;
+            nextSequence += count;
+        }
+
+        ensureCheckpoint(curStamp);
+        lastStamp = curStamp;
+        sequence = nextSequence - 1;
+    }
+
+    /**
+     * 非阻塞地批量生成ID，只在当前毫秒内预留序号，当前毫秒序号用尽时不等待下一毫秒，
+     * 开启混合逻辑时钟时在允许的漂移范围内借用下一毫秒
+     *
+     * @param ids    ID数组
+     * @param offset 写入的起始下标
+     * @param length 最多生成的ID数量
+     * @return 实际生成的ID数量，当前毫秒序号已用尽时返回0
+     */
+    public synchronized int tryGenerate(long[] ids, int offset, int length) {
+        checkRange(ids, offset, length);
+
+        long curStamp = getCurrentMill();
+        if (curStamp < lastStamp) {
+            curStamp = borrowStamp(lastStamp);
+        }
+
+        long nextSequence = curStamp == lastStamp ? sequence + 1 : random.nextInt(16);
+        if (nextSequence > maxSequence) {
+            curStamp = tryNextMill(curStamp);
+            if (curStamp < 0) {
+                return 0;
+            }
+            nextSequence = 0L;
+        }
+
+        int count = (int) Math.min(length, maxSequence - nextSequence + 1);
+        fill(ids, offset, curStamp, nextSequence, count);
+        ensureCheckpoint(curStamp);
+        lastStamp = curStamp;
+        sequence = nextSequence + count - 1;
+        return count;
+    }
+
+    /**
+     * 生成无限的ID流，每次按块调用批量生成接口，块内的ID在同一次加锁内预留。
+     * 流在调用线程上生成ID，当前毫秒序号用尽时会按等待策略等待，需要非阻塞推送时使用{@link LongIdPublisher}
+     *
+     * @param chunkSize 每次批量生成的ID数量
+     * @return 顺序的ID流
+     */
+    public LongStream stream(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size should be larger than 0");
+        }
+
+        return StreamSupport.longStream(new LongIdSpliterator(this, chunkSize), false);
+    }
+
     /**
      * 解析id
      *
@@ -114,33 +300,185 @@ public class LongIdGenerator {
             return null;
         }
 
-        long timestamp = id >> timestampLeft;
-        String bitString = Long.toBinaryString(id >> machineLeft);
-        long machineId = Long.parseLong(bitString.substring(bitString.length() - 10), 2);
-        bitString = Long.toBinaryString(id);
-        long sequence = Long.parseLong(bitString.substring(53), 2);
-        return new Long[]{startStamp + timestamp, machineId, sequence};
+        return new Long[]{startStamp + (id >>> timestampLeft), (id >>> machineLeft) & maxMachineId, id & maxSequence};
+    }
+
+    /**
+     * 解析id，结果写入调用方提供的可复用对象，不产生任何对象分配
+     *
+     * @param id    long类型ID
+     * @param parts 解析结果
+     * @return ID合法返回true，反之false
+     */
+    public boolean parse(long id, LongIdParts parts) {
+        if (id < MIN_ID) {
+            return false;
+        }
+
+        parts.timestamp = startStamp + (id >>> timestampLeft);
+        parts.machineId = (id >>> machineLeft) & maxMachineId;
+        parts.sequence = id & maxSequence;
+        return true;
+    }
+
+    /**
+     * 将同一毫秒内一段连续的序号组合成ID写入数组
+     *
+     * @param ids           ID数组
+     * @param offset        写入的起始下标
+     * @param stamp         毫秒时间戳
+     * @param firstSequence 起始序号
+     * @param count         ID数量
+     */
+    protected void fill(long[] ids, int offset, long stamp, long firstSequence, int count) {
+        long prefix = (stamp - startStamp) << timestampLeft | machineId << machineLeft;
+        for (int i = 0; i < count; i++) {
+            ids[offset + i] = prefix | (firstSequence + i);
+        }
+    }
+
+    /**
+     * 校验批量生成的参数
+     *
+     * @param ids    ID数组
+     * @param offset 写入的起始下标
+     * @param length ID数量
+     */
+    protected void checkRange(long[] ids, int offset, int length) {
+        if (null == ids) {
+            throw new IllegalArgumentException("Id array cannot be null");
+        }
+        if (offset < 0 || length <= 0 || offset + length > ids.length) {
+            throw new IllegalArgumentException("Offset or length is out of the id array bounds");
+        }
+    }
+
+    /**
+     * 开启混合逻辑时钟，时钟回拨时在允许的漂移范围内继续生成ID。需要在生成ID之前设置
+     *
+     * @param hybridClock 混合逻辑时钟，为null时关闭
+     */
+    public void setHybridClock(HybridLogicalClock hybridClock) {
+        this.hybridClock = hybridClock;
+    }
+
+    /**
+     * 设置时间源，默认为系统时间。需要在生成ID之前设置
+     *
+     * @param timeSource 时间源
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
+        }
+
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * 设置序号用尽时的等待策略，默认忙等待。需要在生成ID之前设置
+     *
+     * @param waitStrategy 等待策略
+     */
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        if (null == waitStrategy) {
+            throw new IllegalArgumentException("Wait strategy cannot be null");
+        }
+
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 获取序号用尽时的等待策略
+     *
+     * @return 等待策略
+     */
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * 设置时间戳检查点，只使用大于上次记录的高水位的时间戳。需要在生成ID之前、设置时间源和等待策略之后设置
+     *
+     * @param checkpoint 时间戳检查点，时间戳单位为毫秒
+     * @param waitPast   当前时间没有超过高水位时，true表示等待时间超过高水位，false表示拒绝生成ID直到时间超过高水位
+     */
+    public synchronized void setCheckpoint(StampCheckpoint checkpoint, boolean waitPast) {
+        if (null == checkpoint) {
+            throw new IllegalArgumentException("Checkpoint cannot be null");
+        }
+
+        long recordedStamp = checkpoint.getRecordedStamp();
+        if (waitPast) {
+            waitStrategy.waitUntil(recordedStamp + 1, currentMillSource);
+        }
+        restoreStamp(recordedStamp);
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * 从检查点恢复上一次时间戳，该时间戳的序号视为已经用尽
+     *
+     * @param stamp 检查点记录的高水位
+     */
+    protected void restoreStamp(long stamp) {
+        if (stamp >= lastStamp) {
+            lastStamp = stamp;
+            sequence = maxSequence;
+        }
+    }
+
+    /**
+     * 使用时间戳生成ID之前，确保检查点的高水位不小于该时间戳
+     *
+     * @param stamp 时间戳
+     */
+    protected void ensureCheckpoint(long stamp) {
+        if (null != checkpoint) {
+            checkpoint.ensure(stamp);
+        }
     }
 
     /**
-     * 获取下一毫秒
+     * 时钟回拨时，在混合逻辑时钟允许的漂移范围内继续使用上一次时间戳，否则拒绝生成ID
      *
+     * @param lastStamp 上一次时间戳
+     * @return 可用的时间戳
+     */
+    protected long borrowStamp(long lastStamp) {
+        return HybridLogicalClock.borrowStamp(hybridClock, lastStamp, getCurrentMill(), 1L);
+    }
+
+    /**
+     * 获取下一毫秒，开启混合逻辑时钟时在允许的漂移范围内直接借用下一毫秒，无需等待
+     *
+     * @param lastStamp 上一次时间戳
      * @return 下一毫秒
      */
-    private long getNextMill() {
-        long mill = getCurrentMill();
-        while (mill <= lastStamp) {
-            mill = getCurrentMill();
+    protected long getNextMill(long lastStamp) {
+        long mill = tryNextMill(lastStamp);
+        if (mill >= 0) {
+            return mill;
         }
-        return mill;
+        return waitStrategy.waitUntil(lastStamp + 1, currentMillSource);
+    }
+
+    /**
+     * 不等待地获取下一毫秒，时钟已经进入下一毫秒或者混合逻辑时钟允许借用下一毫秒时返回，否则返回-1
+     *
+     * @param lastStamp 上一次时间戳
+     * @return 下一毫秒，无法立即获取时返回-1
+     */
+    protected long tryNextMill(long lastStamp) {
+        return HybridLogicalClock.tryNextStamp(hybridClock, lastStamp, getCurrentMill(), 1L);
     }
 
     /**
-     * 获取当前时间戳
+     * 获取当前时间戳，生成ID和序号用尽后的等待都通过该方法获取时间
      *
      * @return 时间戳
      */
-    private long getCurrentMill() {
-        return System.currentTimeMillis();
+    protected long getCurrentMill() {
+        return timeSource.currentTimeMillis();
     }
 }
@@ -0,0 +1,32 @@
+package com.jinpei.id.generator;
+
+import lombok.Getter;
+
+/**
+ * Long类型ID的解析结果，可复用，配合{@link LongIdGenerator#parse(long, LongIdParts)}避免每次解析分配对象
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-16
+ */
+@Getter
+public class LongIdParts {
+    /**
+     * 毫秒时间戳
+     */
+    long timestamp;
+
+    /**
+     * 机器编号
+     */
+    long machineId;
+
+    /**
+     * 序号
+     */
+    long sequence;
+
+    @Override
+    public String toString() {
+        return "LongIdParts{timestamp=" + timestamp + ", machineId=" + machineId + ", sequence=" + sequence + "}";
+    }
+}
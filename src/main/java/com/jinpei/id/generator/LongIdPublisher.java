@@ -0,0 +1,203 @@
+package com.jinpei.id.generator;
+
+import com.jinpei.id.generator.base.IdSubscriber;
+import com.jinpei.id.generator.base.IdSubscription;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带背压的ID发布者，按订阅者请求的数量持续推送ID：
+ * 1. 每个订阅者在指定的Executor上串行推送，每块ID通过{@link LongIdGenerator#tryGenerate}一次预留；
+ * 2. 当前毫秒的序号用尽时不阻塞推送线程，而是交给共享的定时线程在稍后重新提交推送任务；
+ * 3. 订阅者没有请求时不生成ID；
+ * 4. onNext、onError都在推送线程上串行调用，不会在调用request的线程上回调订阅者。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+@Slf4j
+public class LongIdPublisher {
+    /**
+     * 序号用尽后重新推送的延迟
+     */
+    private static final long RETRY_DELAY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * 序号用尽后延迟重试的定时线程，所有发布者共享
+     */
+    private static final ScheduledExecutorService RETRY_TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "id-generator-publisher-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * ID生成器
+     */
+    private final LongIdGenerator generator;
+
+    /**
+     * 推送ID的线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 每次推送的最大ID数量
+     */
+    private final int maxChunkSize;
+
+    /**
+     * 构造函数
+     *
+     * @param generator    ID生成器
+     * @param executor     推送ID的线程池
+     * @param maxChunkSize 每次推送的最大ID数量
+     */
+    public LongIdPublisher(LongIdGenerator generator, Executor executor, int maxChunkSize) {
+        if (null == generator || null == executor) {
+            throw new IllegalArgumentException("Generator and executor cannot be null");
+        }
+        if (maxChunkSize <= 0) {
+            throw new IllegalArgumentException("Max chunk size should be larger than 0");
+        }
+
+        this.generator = generator;
+        this.executor = executor;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * 订阅ID
+     *
+     * @param subscriber 订阅者
+     */
+    public void subscribe(IdSubscriber subscriber) {
+        if (null == subscriber) {
+            throw new IllegalArgumentException("Subscriber cannot be null");
+        }
+
+        subscriber.onSubscribe(new Subscription(subscriber));
+    }
+
+    /**
+     * 订阅关系，同一时刻只有一个线程在推送
+     */
+    private class Subscription implements IdSubscription, Runnable {
+        /**
+         * 订阅者
+         */
+        private final IdSubscriber subscriber;
+
+        /**
+         * 推送用的ID数组，每个订阅复用一个
+         */
+        private final long[] buffer = new long[maxChunkSize];
+
+        /**
+         * 已请求尚未推送的ID数量
+         */
+        private final AtomicLong requested = new AtomicLong();
+
+        /**
+         * 推送任务计数，大于0时已有推送任务在运行或等待重试
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+
+        /**
+         * 是否已取消
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * 待推送的错误，由推送任务调用onError
+         */
+        private volatile Throwable error;
+
+        Subscription(IdSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled) {
+                return;
+            }
+            if (n <= 0) {
+                //不在调用方线程上回调onError，记录下来由推送任务串行发出，避免与onNext并发
+                if (null == error) {
+                    error = new IllegalArgumentException("The number of requested ids should be larger than 0");
+                }
+            } else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!requested.compareAndSet(current, next));
+            }
+
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (; ; ) {
+                long demand;
+                while (!cancelled && null == error && (demand = requested.get()) > 0) {
+                    int count;
+                    try {
+                        count = generator.tryGenerate(buffer, 0, (int) Math.min(demand, maxChunkSize));
+                    } catch (RuntimeException e) {
+                        cancelled = true;
+                        subscriber.onError(e);
+                        return;
+                    }
+
+                    if (count == 0) {
+                        //当前毫秒序号已用尽，推送线程不等待，稍后由定时线程重新提交，wip保持不变
+                        RETRY_TIMER.schedule(() -> executor.execute(this), RETRY_DELAY_NANOS, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+
+                    if (demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-count);
+                    }
+                    try {
+                        subscriber.onNext(buffer, 0, count);
+                    } catch (RuntimeException e) {
+                        log.error("Id subscriber failed, cancel subscription", e);
+                        cancelled = true;
+                        return;
+                    }
+                }
+
+                if (cancelled) {
+                    return;
+                }
+                if (null != error) {
+                    cancelled = true;
+                    subscriber.onError(error);
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
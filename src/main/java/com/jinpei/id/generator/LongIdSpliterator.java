@@ -0,0 +1,60 @@
+package com.jinpei.id.generator;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * 无限ID流的Spliterator，每次按块调用批量生成接口，逐个吐出块内的ID
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see LongIdGenerator#stream(int)
+ */
+class LongIdSpliterator implements Spliterator.OfLong {
+    /**
+     * ID生成器
+     */
+    private final LongIdGenerator generator;
+
+    /**
+     * 当前块
+     */
+    private final long[] chunk;
+
+    /**
+     * 下一个要吐出的ID下标，等于块长度时需要重新生成
+     */
+    private int position;
+
+    LongIdSpliterator(LongIdGenerator generator, int chunkSize) {
+        this.generator = generator;
+        this.chunk = new long[chunkSize];
+        this.position = chunkSize;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if (position == chunk.length) {
+            generator.generate(chunk, 0, chunk.length);
+            position = 0;
+        }
+
+        action.accept(chunk[position++]);
+        return true;
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL;
+    }
+}
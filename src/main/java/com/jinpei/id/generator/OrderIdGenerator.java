@@ -1,8 +1,18 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.algorithm.JumpConsistentHash;
+import com.jinpei.id.common.algorithm.LuhnChecksum;
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
 import com.jinpei.id.common.utils.IdUtils;
+import com.jinpei.id.common.wait.ParkingWaitStrategy;
+import com.jinpei.id.common.wait.WaitStrategy;
+import com.jinpei.id.generator.base.BitLayout;
+import com.jinpei.id.generator.base.DecodedId;
+import com.jinpei.id.generator.base.HybridLogicalClock;
+import com.jinpei.id.generator.base.SequenceState;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 16位订单ID生成器
@@ -17,11 +27,61 @@ import java.util.Random;
  * 5. 6 bit 校验位目前对店铺编号+原始ID进行校验
  * 即订单生成最大支持8台负载，每台负载每秒钟可以生成512个订单ID。
  * 时间戳、机器编号、序号和校验位的bit位数支持业务自定义，方便业务定制自己的生成器。
+ * <p>
+ * 按店铺分库分表时可以使用分片布局（{@link #OrderIdGenerator(int, int)}），从序号中取出若干bit放在最低位作为分片号：
+ * +==================================================================================
+ * | 30bit时间戳 | 3bit机器编号  | 4bit订单类型  | (10-n)bit序号 | 6bit 校验位 | nbit分片号 |
+ * +==================================================================================
+ * 分片号是店铺ID的Jump一致性哈希，同一店铺的订单ID分片号相同，分片数翻倍时只有一半的店铺需要迁移。
+ * 数据访问层通过{@link #shardOf(long, int)}只用位与就能得到订单ID所在的分片，不需要查询店铺。
+ * 不同分片的订单ID不会重复，序号按订单类型和分片分别维护，每个分片每秒各自拥有2^(10-n)个序号。
+ * 同一店铺的订单都在同一个分片，因此单个店铺每种订单类型每台机器每秒最多只有2^(10-n)个序号：
+ * n=4时热点店铺每秒只能生成64个订单ID，不分片时是1024个。
  *
  * @author Mingo.Liu
  * @date 2023-11-28
  */
 public class OrderIdGenerator {
+    /**
+     * 字段下标：时间戳（秒，相对起始时间）
+     */
+    public static final int TIME_FIELD = 0;
+
+    /**
+     * 字段下标：机器编号
+     */
+    public static final int MACHINE_FIELD = 1;
+
+    /**
+     * 字段下标：订单类型
+     */
+    public static final int TYPE_FIELD = 2;
+
+    /**
+     * 字段下标：序号
+     */
+    public static final int SEQUENCE_FIELD = 3;
+
+    /**
+     * 字段下标：校验码
+     */
+    public static final int VALIDATION_FIELD = 4;
+
+    /**
+     * 字段下标：分片号，只有分片布局才有该字段
+     */
+    public static final int SHARD_FIELD = 5;
+
+    /**
+     * 分片布局的默认分片bit数，16个分片；不使用分片布局的生成器没有分片号字段
+     */
+    public static final int DEFAULT_SHARD_BITS = 4;
+
+    /**
+     * 最大分片bit数，序号至少保留4bit
+     */
+    public static final int MAX_SHARD_BITS = 6;
+
     /**
      * 时间bit数，时间的单位为秒，30 bit位时间可以表示34年
      */
@@ -48,20 +108,40 @@ public class OrderIdGenerator {
     private int validationBits = 6;
 
     /**
-     * 上一次时间戳
+     * 分片bit数，为0时不分片
      */
-    private long lastStamp = -1L;
+    private int shardBits = 0;
 
     /**
-     * 序列
+     * 按订单类型分区的序号状态，不同类型的订单ID不会重复，各自拥有独立的序号空间
      */
-    private long sequence = 0L;
+    private SequenceState[] partitions;
+
+    /**
+     * 混合逻辑时钟，为null时时钟回拨直接拒绝生成ID
+     */
+    private HybridLogicalClock hybridClock;
+
+    /**
+     * 时间源
+     */
+    private TimeSource timeSource = SystemTimeSource.INSTANCE;
+
+    /**
+     * 序号用尽时等待下一个时间单位的策略
+     */
+    private WaitStrategy waitStrategy = new ParkingWaitStrategy();
 
     /**
      * 机器编号
      */
     private long machineId = 1L;
 
+    /**
+     * 订单ID bit布局
+     */
+    private BitLayout layout;
+
     /**
      * 时间左移bit数
      */
@@ -82,6 +162,11 @@ public class OrderIdGenerator {
      */
     private int sequenceOffset = 0;
 
+    /**
+     * 校验码左移bit数
+     */
+    private int validationOffset = 0;
+
     /**
      * 最大序列号
      */
@@ -97,6 +182,11 @@ public class OrderIdGenerator {
      */
     private int maxType = 0;
 
+    /**
+     * 新的一秒起始序号的随机范围
+     */
+    private int restartBound = 0;
+
     /**
      * 起始时间戳
      */
@@ -122,11 +212,6 @@ public class OrderIdGenerator {
      */
     private static final int ID_BIT_LENGTH = 53;
 
-    /**
-     * Java伪随机数
-     */
-    private static final Random RANDOM = new Random();
-
     public OrderIdGenerator() {
         this(1);
     }
@@ -141,6 +226,28 @@ public class OrderIdGenerator {
         init();
     }
 
+    /**
+     * 分片布局的构造函数，从10bit序号中取出shardBits位作为分片号，其余字段位数不变
+     *
+     * @param machineId 机器编号
+     * @param shardBits 分片bit数，范围[1, {@link #MAX_SHARD_BITS}]，一般使用{@link #DEFAULT_SHARD_BITS}
+     */
+    public OrderIdGenerator(int machineId, int shardBits) {
+        if (shardBits < 1 || shardBits > MAX_SHARD_BITS) {
+            throw new IllegalArgumentException("The shard bits must be in [1, " + MAX_SHARD_BITS + "]");
+        }
+
+        int maxMachineId = ~(-1 << machineBits);
+        if (machineId > maxMachineId) {
+            throw new IllegalArgumentException("Machine bits is " + machineBits + ", so the max machine id is " + maxMachineId);
+        }
+
+        this.sequenceBits -= shardBits;
+        this.shardBits = shardBits;
+        this.machineId = machineId;
+        init();
+    }
+
     /**
      * 全参构造函数，便于业务定制订单号生成器
      *
@@ -184,7 +291,7 @@ public class OrderIdGenerator {
      * @param shopId 店铺编号
      * @return 16位订单ID
      */
-    public synchronized long generate(String shopId, int type) {
+    public long generate(String shopId, int type) {
         if (null == shopId || shopId.isEmpty()) {
             throw new IllegalArgumentException("Shop id cannot be null");
         }
@@ -192,23 +299,34 @@ public class OrderIdGenerator {
             throw new IllegalArgumentException("Type is invalid");
         }
 
-        long curStamp = getCurrentSecond();
-        if (curStamp < lastStamp) {
-            throw new IllegalArgumentException("Clock moved backwards. Refusing to generate id");
-        }
+        long numberShopId = getNumberShopId(shopId);
+        long shard = shardBits > 0 ? JumpConsistentHash.bucket(numberShopId, 1 << shardBits) : 0L;
+        SequenceState state = partitions[type << shardBits | (int) shard];
+        long restartSequence = ThreadLocalRandom.current().nextInt(restartBound);
+        long curStamp;
+        long sequence;
+        synchronized (state) {
+            long lastStamp = state.getLastStamp();
+            curStamp = getCurrentSecond();
+            if (curStamp < lastStamp) {
+                curStamp = HybridLogicalClock.borrowStamp(hybridClock, lastStamp,
+                        timeSource.currentTimeMillis(), 1000L);
+            }
 
-        if (curStamp == lastStamp) {
-            sequence = (sequence + 1) & maxSequence;
-            if (sequence == 0L) {
-                curStamp = getNextSecond();
-                sequence = RANDOM.nextInt(20);
+            if (curStamp == lastStamp) {
+                sequence = (state.getSequence() + 1) & maxSequence;
+                if (sequence == 0L) {
+                    curStamp = HybridLogicalClock.nextStamp(hybridClock, lastStamp, timeSource, waitStrategy, 1000L);
+                    sequence = restartSequence;
+                }
+            } else {
+                sequence = restartSequence;
             }
-        } else {
-            sequence = RANDOM.nextInt(20);
+            state.setLastStamp(curStamp);
+            state.setSequence(sequence);
         }
-        lastStamp = curStamp;
 
-        return combine(shopId, type, curStamp - startTimeStamp);
+        return combine(numberShopId, shard, type, curStamp - startTimeStamp, sequence);
     }
 
     /**
@@ -223,18 +341,19 @@ public class OrderIdGenerator {
             return false;
         }
 
-        String bitString = Long.toBinaryString(id);
-        int bitLength = bitString.length();
-        String codeBitString = bitString.substring(bitLength - validationBits);
-        int parsedValidationCode = Integer.parseInt(codeBitString, 2);
-        long originId = id - parsedValidationCode;
-        int validationCode = getValidationCode(originId, shopId, maxCode);
-        if (parsedValidationCode != validationCode) {
+        long numberShopId = getNumberShopId(shopId);
+        if (shardBits > 0 && layout.get(id, SHARD_FIELD) != JumpConsistentHash.bucket(numberShopId, 1 << shardBits)) {
             return false;
         }
 
-        long parsedTimestamp = Long.parseLong(bitString.substring(0, bitLength - timeOffset), 2);
-        long currentStamp = System.currentTimeMillis() / 1000 - startTimeStamp;
+        long parsedValidationCode = layout.get(id, VALIDATION_FIELD);
+        long originId = id - (parsedValidationCode << validationOffset);
+        if (parsedValidationCode != LuhnChecksum.validationCode(originId, numberShopId, maxCode)) {
+            return false;
+        }
+
+        long parsedTimestamp = layout.get(id, TIME_FIELD);
+        long currentStamp = timeSource.currentTimeMillis() / 1000 - startTimeStamp;
         long timeDelta = parsedTimestamp - currentStamp;
         return timeDelta < 10;
     }
@@ -246,100 +365,183 @@ public class OrderIdGenerator {
      * @return 解析结果依次是时间戳(毫秒)、机器编码、订单类型、序列号
      */
     public Long[] parse(String shopId, long id) {
-        if (!validate(shopId, id)) {
+        DecodedId decoded = new DecodedId();
+        if (!parse(shopId, id, decoded)) {
             throw new IllegalArgumentException("Id is invalid");
         }
 
-        String bitString = Long.toBinaryString(id);
-        int bitLength = bitString.length();
-        long timestamp = Long.parseLong(bitString.substring(0, bitLength - timeOffset), 2);
-        long machineId = Long.parseLong(bitString.substring(bitLength - machineOffset - machineBits, bitLength - machineOffset), 2);
-        long type = Long.parseLong(bitString.substring(bitLength - typeOffset - typeBites, bitLength - typeOffset), 2);
-        long sequence = Long.parseLong(bitString.substring(bitLength - sequenceOffset - sequenceBits, bitLength - sequenceOffset), 2);
-        return new Long[]{(timestamp + startTimeStamp) * 1000, machineId, type, sequence};
+        return new Long[]{decoded.getTimestamp(), decoded.get(MACHINE_FIELD), decoded.get(TYPE_FIELD),
+                decoded.get(SEQUENCE_FIELD)};
+    }
+
+    /**
+     * 解析订单ID到可以重复使用的解析结果，避免创建Long数组
+     *
+     * @param shopId  店铺编号
+     * @param id      订单ID
+     * @param decoded 解析结果，字段下标见{@link #TIME_FIELD}等常量，时间戳为毫秒
+     * @return 订单ID合法返回true，反之false
+     */
+    public boolean parse(String shopId, long id, DecodedId decoded) {
+        if (!validate(shopId, id)) {
+            return false;
+        }
+
+        layout.decode(id, decoded);
+        decoded.setTimestamp((decoded.get(TIME_FIELD) + startTimeStamp) * 1000);
+        return true;
+    }
+
+    /**
+     * 获取订单ID bit布局
+     *
+     * @return bit布局
+     */
+    public BitLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * 获取分片bit数
+     *
+     * @return 分片bit数，为0时不分片
+     */
+    public int getShardBits() {
+        return shardBits;
+    }
+
+    /**
+     * 获取店铺所在的分片，新订单写库时使用
+     *
+     * @param shopId 店铺编号
+     * @return 分片号，不分片时为0
+     */
+    public int getShard(String shopId) {
+        if (null == shopId || shopId.isEmpty()) {
+            throw new IllegalArgumentException("Shop id cannot be null");
+        }
+
+        return shardBits > 0 ? JumpConsistentHash.bucket(getNumberShopId(shopId), 1 << shardBits) : 0;
+    }
+
+    /**
+     * 获取分片布局的订单ID所在的分片，只有一次位与，不校验订单ID。
+     * <p>
+     * 订单ID中没有记录布局，分片bit数需要与生成器的{@link #getShardBits()}一致；
+     * 对不分片的布局生成的订单ID，返回的是校验位的低bit，不是分片号
+     *
+     * @param orderId   订单ID
+     * @param shardBits 分片bit数
+     * @return 分片号
+     */
+    public static int shardOf(long orderId, int shardBits) {
+        return (int) orderId & ~(-1 << shardBits);
     }
 
     /**
      * 将时间戳、机器编号、序号组合成订单ID
      *
-     * @param shopId    店铺ID
-     * @param type      订单类型
-     * @param timestamp 时间戳
+     * @param numberShopId 店铺ID对应的数字
+     * @param shard        分片号
+     * @param type         订单类型
+     * @param timestamp    时间戳
+     * @param sequence     序号
      * @return 订单ID
      */
-    protected long combine(String shopId, long type, Long timestamp) {
+    protected long combine(long numberShopId, long shard, long type, long timestamp, long sequence) {
         long originId = timestamp << timeOffset
                 | machineId << machineOffset
                 | type << typeOffset
-                | sequence << sequenceOffset;
+                | sequence << sequenceOffset
+                | shard;
 
-        int validationCode = getValidationCode(originId, shopId, maxCode);
-        return originId + validationCode;
+        long validationCode = LuhnChecksum.validationCode(originId, numberShopId, maxCode);
+        return originId + (validationCode << validationOffset);
     }
 
     /**
      * 数据初始化
      */
     private void init() {
-        sequenceOffset = validationBits;
-        typeOffset = sequenceOffset + sequenceBits;
-        machineOffset = typeOffset + typeBites;
-        timeOffset = machineOffset + machineBits;
+        layout = shardBits > 0
+                ? new BitLayout(timeBits, machineBits, typeBites, sequenceBits, validationBits, shardBits)
+                : new BitLayout(timeBits, machineBits, typeBites, sequenceBits, validationBits);
+        validationOffset = layout.getOffset(VALIDATION_FIELD);
+        sequenceOffset = layout.getOffset(SEQUENCE_FIELD);
+        typeOffset = layout.getOffset(TYPE_FIELD);
+        machineOffset = layout.getOffset(MACHINE_FIELD);
+        timeOffset = layout.getOffset(TIME_FIELD);
         maxSequence = ~(-1L << sequenceBits);
+        restartBound = (int) Math.min(20L, (maxSequence + 1) / 2);
         maxType = ~(-1 << typeBites);
+        partitions = new SequenceState[(maxType + 1) << shardBits];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new SequenceState();
+        }
         maxCode = ~(-1 << validationBits);
         startTimeStamp = IdUtils.getTimeStampSecond(startTimeString);
     }
 
     /**
-     * 获取当前时间戳 单位秒
+     * 开启混合逻辑时钟，时钟回拨时在允许的漂移范围内继续生成ID。需要在生成ID之前设置
      *
-     * @return 时间戳（秒）
+     * @param hybridClock 混合逻辑时钟，为null时关闭
      */
-    private long getCurrentSecond() {
-        return System.currentTimeMillis() / 1000;
+    public void setHybridClock(HybridLogicalClock hybridClock) {
+        this.hybridClock = hybridClock;
     }
 
     /**
-     * 获取下一秒钟
+     * 设置时间源，默认为系统时间。需要在生成ID之前设置
      *
-     * @return 时间戳（秒）
+     * @param timeSource 时间源
      */
-    private long getNextSecond() {
-        long second = getCurrentSecond();
-        while (second <= lastStamp) {
-            IdUtils.sleep(20);
-            second = getCurrentSecond();
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
         }
 
-        return second;
+        this.timeSource = timeSource;
     }
 
     /**
-     * 获取校验码
+     * 设置序号用尽时的等待策略，默认按剩余时间挂起。需要在生成ID之前设置
      *
-     * @param originId 原始数字
-     * @param shopId   店铺ID
-     * @param maxCode  最大校验码
-     * @return 校验码
-     */
-    private int getValidationCode(long originId, String shopId, int maxCode) {
-        long numberShopId = Long.parseLong(shopId.toUpperCase(), Character.MAX_RADIX);
-        String strId = String.valueOf(originId) + numberShopId;
-        int[] numbers = new int[strId.length()];
-        for (int i = 0, length = strId.length(); i < length; i++) {
-            numbers[i] = Character.getNumericValue(strId.charAt(i));
-        }
-        for (int i = numbers.length - 2; i >= 0; i -= 2) {
-            numbers[i] <<= 1;
-            numbers[i] = numbers[i] / 10 + numbers[i] % 10;
+     * @param waitStrategy 等待策略
+     */
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        if (null == waitStrategy) {
+            throw new IllegalArgumentException("Wait strategy cannot be null");
         }
 
-        int validationCode = 0;
-        for (int number : numbers) {
-            validationCode += number;
-        }
-        validationCode *= 9;
-        return validationCode % maxCode;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 获取序号用尽时的等待策略
+     *
+     * @return 等待策略
+     */
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * 获取当前时间戳 单位秒
+     *
+     * @return 时间戳（秒）
+     */
+    private long getCurrentSecond() {
+        return timeSource.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * 获取店铺ID对应的数字，参与校验码和分片号的计算
+     *
+     * @param shopId 店铺ID
+     * @return 店铺ID对应的数字
+     */
+    private long getNumberShopId(String shopId) {
+        return Long.parseLong(shopId.toUpperCase(), Character.MAX_RADIX);
     }
 }
@@ -0,0 +1,136 @@
+package com.jinpei.id.generator;
+
+import com.jinpei.id.generator.base.ShopKey;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * 批量发卡，把一个店铺的大量卡号直接写入文件，每行一个16位卡号。
+ * <p>
+ * 循环调用{@link ShopCardIdGenerator#generate(String)}时每秒的512个序号用完就要等待下一秒，200万张卡需要一个多小时。
+ * 批量发卡按块处理，每块：
+ * 1. 通过{@link ShopCardIdGenerator#reserveSeconds(ShopKey, int)}一次预留连续若干秒高半部分的序号（默认每秒256个），
+ * 不需要等待时钟，也不影响同一店铺编码其它店铺的实时生成；
+ * 2. 并行组合卡号、计算校验码并格式化到字节数组的固定位置，每行17字节；
+ * 3. 通过{@link FileChannel}顺序写入，写完所有块后调用force刷盘。
+ * 预留的时间最多领先当前时间{@link ShopCardIdGenerator#MAX_RESERVE_AHEAD_SECONDS}秒，
+ * 同一个店铺编码一次可以直接发放约76.8万张卡，超过的部分随时钟前进每秒只能再发放256张：
+ * 200万张卡约有120万张需要等待，总耗时约80分钟。最后一秒没有用完的序号不再使用。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class ShopCardIdFileWriter {
+    /**
+     * 每块预留的秒数
+     */
+    private static final int BLOCK_SECONDS = 64;
+
+    /**
+     * 每行字节数，16位卡号加换行符
+     */
+    private static final int LINE_BYTES = 17;
+
+    /**
+     * 店铺卡号生成器
+     */
+    private final ShopCardIdGenerator generator;
+
+    /**
+     * 构造函数
+     *
+     * @param generator 店铺卡号生成器，批量发卡与实时生成使用同一秒内不同的序号，卡号不会重复
+     */
+    public ShopCardIdFileWriter(ShopCardIdGenerator generator) {
+        if (null == generator) {
+            throw new IllegalArgumentException("Generator cannot be null");
+        }
+
+        this.generator = generator;
+    }
+
+    /**
+     * 生成卡号写入文件，文件已存在时覆盖，写完后刷盘
+     *
+     * @param shopId 店铺ID
+     * @param count  卡号数量
+     * @param file   文件路径
+     * @throws IOException 写文件失败
+     */
+    public void write(String shopId, long count, Path file) throws IOException {
+        if (null == shopId || shopId.length() == 0) {
+            throw new IllegalArgumentException("Shop id cannot be null");
+        }
+        if (null == file) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        //打开文件时会清空已有内容，参数不合法时不能先打开
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count should be larger than 0");
+        }
+
+        ShopKey shopKey = generator.getShopCodeCache().get(shopId);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(shopKey, count, channel);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * 生成卡号写入文件通道的当前位置，不刷盘
+     *
+     * @param shopKey 店铺编号
+     * @param count   卡号数量
+     * @param channel 文件通道
+     * @throws IOException 写文件失败
+     */
+    public void write(ShopKey shopKey, long count, FileChannel channel) throws IOException {
+        if (null == shopKey || null == channel) {
+            throw new IllegalArgumentException("Shop key and channel cannot be null");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count should be larger than 0");
+        }
+
+        long firstSequence = generator.getReservedSequenceStart();
+        int perSecond = (int) (generator.getMaxSequence() + 1 - firstSequence);
+        byte[] bytes = new byte[BLOCK_SECONDS * perSecond * LINE_BYTES];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long remaining = count;
+        while (remaining > 0) {
+            int blockCount = (int) Math.min(remaining, (long) BLOCK_SECONDS * perSecond);
+            long firstStamp = generator.reserveSeconds(shopKey, (blockCount + perSecond - 1) / perSecond);
+            IntStream.range(0, blockCount).parallel().forEach(i -> format(
+                    generator.compose(shopKey, firstStamp + i / perSecond, firstSequence + i % perSecond), bytes,
+                    i * LINE_BYTES));
+
+            buffer.clear();
+            buffer.limit(blockCount * LINE_BYTES);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            remaining -= blockCount;
+        }
+    }
+
+    /**
+     * 把16位卡号格式化为一行ASCII字符
+     *
+     * @param id     卡号
+     * @param bytes  字节数组
+     * @param offset 写入的起始下标
+     */
+    private static void format(long id, byte[] bytes, int offset) {
+        for (int i = offset + LINE_BYTES - 2; i >= offset; i--) {
+            bytes[i] = (byte) ('0' + id % 10);
+            id /= 10;
+        }
+        bytes[offset + LINE_BYTES - 1] = '\n';
+    }
+}
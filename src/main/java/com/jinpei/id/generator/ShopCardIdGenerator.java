@@ -1,7 +1,19 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.algorithm.LuhnChecksum;
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
 import com.jinpei.id.common.utils.IdUtils;
+import com.jinpei.id.common.wait.ParkingWaitStrategy;
+import com.jinpei.id.common.wait.WaitStrategy;
+import com.jinpei.id.generator.base.BitLayout;
 import com.jinpei.id.generator.base.CardIdGeneratorable;
+import com.jinpei.id.generator.base.DecodedId;
+import com.jinpei.id.generator.base.HybridLogicalClock;
+import com.jinpei.id.generator.base.SequenceState;
+import com.jinpei.id.generator.base.ShopCodeCache;
+import com.jinpei.id.generator.base.ShopKey;
+import com.jinpei.id.generator.base.StampCheckpoint;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -21,6 +33,37 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @SuppressWarnings({"UnusedAssignment", "BooleanMethodIsAlwaysInverted"})
 public class ShopCardIdGenerator implements CardIdGeneratorable {
+    /**
+     * 字段下标：店铺编码
+     */
+    public static final int SHOP_FIELD = 0;
+
+    /**
+     * 字段下标：时间戳（秒，相对起始时间）
+     */
+    public static final int TIME_FIELD = 1;
+
+    /**
+     * 字段下标：机器编号
+     */
+    public static final int MACHINE_FIELD = 2;
+
+    /**
+     * 字段下标：序号
+     */
+    public static final int SEQUENCE_FIELD = 3;
+
+    /**
+     * 字段下标：校验码
+     */
+    public static final int VALIDATION_FIELD = 4;
+
+    /**
+     * 批量预留的时间最多领先当前时间的秒数，校验时允许卡号时间领先1小时，留出10分钟给机器之间的时钟误差。
+     * 预留只占用每秒高半部分的序号，默认每秒256个，因此一个店铺编码最多直接预留约76.8万张卡
+     */
+    public static final int MAX_RESERVE_AHEAD_SECONDS = 3000;
+
     /**
      * 时间bit数，时间的单位为秒，30 bit位时间可以表示34年
      */
@@ -42,19 +85,44 @@ public class ShopCardIdGenerator implements CardIdGeneratorable {
     private int validationBits = 7;
 
     /**
-     * 上一次时间戳
+     * 按店铺编码分区的序号状态，不同店铺编码的卡号不会重复，各自拥有独立的序号空间
      */
-    private long lastStamp = -1L;
+    private final SequenceState[] partitions = new SequenceState[16];
 
     /**
-     * 系统编号左移bit数
+     * 混合逻辑时钟，为null时时钟回拨直接拒绝生成ID
      */
-    private int shopOffset = 0;
+    private HybridLogicalClock hybridClock;
+
+    /**
+     * 店铺编号缓存
+     */
+    private ShopCodeCache shopCodeCache = new ShopCodeCache();
+
+    /**
+     * 时间源
+     */
+    private TimeSource timeSource = SystemTimeSource.INSTANCE;
+
+    /**
+     * 序号用尽时等待下一个时间单位的策略
+     */
+    private WaitStrategy waitStrategy = new ParkingWaitStrategy();
 
     /**
-     * 序列
+     * 时间戳检查点，为null时不记录
      */
-    private long sequence = 0L;
+    private StampCheckpoint checkpoint;
+
+    /**
+     * 卡号bit布局
+     */
+    private BitLayout layout;
+
+    /**
+     * 系统编号左移bit数
+     */
+    private int shopOffset = 0;
 
     /**
      * 机器编号
@@ -86,11 +154,6 @@ public class ShopCardIdGenerator implements CardIdGeneratorable {
      */
     private int maxCode = 0;
 
-    /**
-     * 最大店铺编号校验码
-     */
-    private long maxShopCode = 0L;
-
     /**
      * 起始时间戳
      */
@@ -166,27 +229,149 @@ public class ShopCardIdGenerator implements CardIdGeneratorable {
      * @param shopId 店铺编号
      * @return 16位卡号
      */
-    public synchronized long generate(String shopId) {
+    public long generate(String shopId) {
         if (null == shopId || shopId.length() == 0) {
             throw new IllegalArgumentException("Shop id cannot be null");
         }
 
-        long curStamp = getCurrentSecond();
-        if (curStamp < lastStamp) {
-            throw new IllegalArgumentException("Clock moved backwards. Refusing to generate id");
+        return generate(shopCodeCache.get(shopId));
+    }
+
+    /**
+     * 根据预先解析的店铺编号生成卡号，跳过店铺ID的解析
+     *
+     * @param shopKey 店铺编号
+     * @return 16位卡号
+     */
+    public long generate(ShopKey shopKey) {
+        if (null == shopKey) {
+            throw new IllegalArgumentException("Shop key cannot be null");
+        }
+
+        long shopCode = shopKey.getShopCode();
+        SequenceState state = partitions[(int) shopCode];
+        for (; ; ) {
+            long curStamp;
+            long sequence;
+            //序号用尽需要等待时记录等待的目标时间，释放分区锁之后再等待，不阻塞同一分区的其它请求和批量预留
+            long waitStamp = -1L;
+            synchronized (state) {
+                long lastStamp = state.getLastStamp();
+                curStamp = getCurrentSecond();
+                if (curStamp < lastStamp) {
+                    curStamp = HybridLogicalClock.borrowStamp(hybridClock, lastStamp,
+                            timeSource.currentTimeMillis(), 1000L);
+                }
+
+                if (curStamp == lastStamp) {
+                    sequence = state.getSequence() + 1;
+                    //批量预留的秒只使用低半部分的序号
+                    if (sequence > getLiveMaxSequence(state, curStamp)) {
+                        curStamp = HybridLogicalClock.tryNextStamp(hybridClock, lastStamp,
+                                timeSource.currentTimeMillis(), 1000L);
+                        sequence = 0L;
+                        if (curStamp < 0) {
+                            waitStamp = lastStamp + 1;
+                        }
+                    }
+                } else {
+                    sequence = 0L;
+                }
+                if (waitStamp < 0) {
+                    if (null != checkpoint) {
+                        checkpoint.ensure(curStamp);
+                    }
+                    state.setLastStamp(curStamp);
+                    state.setSequence(sequence);
+                }
+            }
+
+            if (waitStamp < 0) {
+                return combine(shopCode, curStamp - startTimeStamp, sequence);
+            }
+            waitStrategy.waitUntil(waitStamp * 1000, timeSource);
+        }
+    }
+
+    /**
+     * 为批量发卡预留连续若干秒的序号空间，预留的每一秒中[{@link #getReservedSequenceStart()}, {@link #getMaxSequence()}]
+     * 的序号由调用方独占。
+     * <p>
+     * 预留不改变分区的实时生成状态：同一店铺编码的其它店铺仍然按当前时间生成卡号，不会拿到时间领先的卡号，也不需要等待，
+     * 只是在预留的秒内每秒只能使用低半部分的序号，分区的实时容量减半。
+     * 预留的时间紧接在上一次预留之后，不早于当前时间，最多领先{@link #MAX_RESERVE_AHEAD_SECONDS}秒，
+     * 保证卡号在其它机器上也能通过校验；超过时等待时钟前进，等待不持有分区锁。
+     * 设置了时间戳检查点时，检查点记录预留的最后一秒，进程重启后所有分区都从该秒之后开始生成
+     *
+     * @param shopKey 店铺编号
+     * @param seconds 预留的秒数，范围[1, {@link #MAX_RESERVE_AHEAD_SECONDS}]
+     * @return 预留的第一秒（秒级时间戳），预留范围是[返回值, 返回值 + seconds - 1]
+     */
+    public long reserveSeconds(ShopKey shopKey, int seconds) {
+        if (null == shopKey) {
+            throw new IllegalArgumentException("Shop key cannot be null");
+        }
+        if (seconds < 1 || seconds > MAX_RESERVE_AHEAD_SECONDS) {
+            throw new IllegalArgumentException("The seconds must be in [1, " + MAX_RESERVE_AHEAD_SECONDS + "]");
         }
 
-        if (curStamp == lastStamp) {
-            sequence = (sequence + 1) & maxSequence;
-            if (sequence == 0L) {
-                curStamp = getNextSecond();
+        SequenceState state = partitions[(int) shopKey.getShopCode()];
+        for (; ; ) {
+            long curStamp = getCurrentSecond();
+            long endStamp;
+            synchronized (state) {
+                long firstStamp = Math.max(curStamp, state.getReservedStamp() + 1);
+                //实时生成已经用到高半部分序号的秒不能预留
+                long lastStamp = state.getLastStamp();
+                if (lastStamp > firstStamp
+                        || lastStamp == firstStamp && state.getSequence() >= getReservedSequenceStart()) {
+                    firstStamp = lastStamp + 1;
+                }
+                endStamp = firstStamp + seconds - 1;
+                if (endStamp - curStamp <= MAX_RESERVE_AHEAD_SECONDS) {
+                    if (null != checkpoint) {
+                        checkpoint.ensure(endStamp);
+                    }
+                    if (state.getReservedStamp() + 1 < firstStamp) {
+                        //之前的预留区间已经过去，实时生成不会再回到那些秒
+                        state.setReservedFirstStamp(firstStamp);
+                    }
+                    state.setReservedStamp(endStamp);
+                    return firstStamp;
+                }
             }
-        } else {
-            sequence = 0L;
+            waitStrategy.waitUntil((endStamp - MAX_RESERVE_AHEAD_SECONDS) * 1000, timeSource);
         }
-        lastStamp = curStamp;
+    }
+
+    /**
+     * 根据预留的时间和序号组合卡号，时间和序号需要通过{@link #reserveSeconds(ShopKey, int)}预留
+     *
+     * @param shopKey  店铺编号
+     * @param stamp    预留的时间（秒级时间戳）
+     * @param sequence 序号，范围[0, {@link #getMaxSequence()}]
+     * @return 16位卡号
+     */
+    public long compose(ShopKey shopKey, long stamp, long sequence) {
+        return combine(shopKey.getShopCode(), stamp - startTimeStamp, sequence);
+    }
 
-        return combine(shopId, curStamp - startTimeStamp);
+    /**
+     * 获取每秒最大序号
+     *
+     * @return 最大序号
+     */
+    public long getMaxSequence() {
+        return maxSequence;
+    }
+
+    /**
+     * 获取批量预留的起始序号，预留的每一秒中从该序号到{@link #getMaxSequence()}的序号归批量发卡
+     *
+     * @return 起始序号
+     */
+    public long getReservedSequenceStart() {
+        return (maxSequence + 1) >> 1;
     }
 
     /**
@@ -201,13 +386,18 @@ public class ShopCardIdGenerator implements CardIdGeneratorable {
             return false;
         }
 
-        String bitString = Long.toBinaryString(id);
-        int bitLength = bitString.length();
+        return shopCodeCache.get(shopId).getShopCode() == layout.get(id, SHOP_FIELD);
+    }
 
-        long shopCode = IdUtils.getShopCode(shopId, maxShopCode);
-        String shopCodeBitString = bitString.substring(0, bitLength - shopOffset);
-        long parseShopCode = Long.parseLong(shopCodeBitString, 2);
-        return shopCode == parseShopCode;
+    /**
+     * 根据预先解析的店铺编号校验卡号是否合法
+     *
+     * @param shopKey 店铺编号
+     * @param id      卡号
+     * @return boolean 合法返回true，反之false
+     */
+    public boolean validate(ShopKey shopKey, long id) {
+        return null != shopKey && validateCode(id) && shopKey.getShopCode() == layout.get(id, SHOP_FIELD);
     }
 
     /**
@@ -221,29 +411,51 @@ public class ShopCardIdGenerator implements CardIdGeneratorable {
             return null;
         }
 
-        String bitString = Long.toBinaryString(id);
-        int bitLength = bitString.length();
-        long timestamp = Long.parseLong(bitString.substring(bitLength - timeOffset - timeBits, bitLength - timeOffset), 2);
-        long machineId = Long.parseLong(bitString.substring(bitLength - machineOffset - machineBits, bitLength - machineOffset), 2);
-        long sequence = Long.parseLong(bitString.substring(bitLength - sequenceOffset - sequenceBits, bitLength - sequenceOffset), 2);
-        return new Long[]{(timestamp + startTimeStamp) * 1000, machineId, sequence};
+        return new Long[]{(layout.get(id, TIME_FIELD) + startTimeStamp) * 1000, layout.get(id, MACHINE_FIELD),
+                layout.get(id, SEQUENCE_FIELD)};
+    }
+
+    /**
+     * 解析卡号到可以重复使用的解析结果，避免创建Long数组
+     *
+     * @param id      卡号
+     * @param decoded 解析结果，字段下标见{@link #SHOP_FIELD}等常量，时间戳为毫秒
+     * @return 卡号合法返回true，反之false
+     */
+    public boolean parse(long id, DecodedId decoded) {
+        if (!validateCode(id)) {
+            return false;
+        }
+
+        layout.decode(id, decoded);
+        decoded.setTimestamp((decoded.get(TIME_FIELD) + startTimeStamp) * 1000);
+        return true;
+    }
+
+    /**
+     * 获取卡号bit布局
+     *
+     * @return bit布局
+     */
+    public BitLayout getLayout() {
+        return layout;
     }
 
     /**
      * 将时间戳、机器编号、序号组合成卡号ID
      *
-     * @param shopId    店铺ID
+     * @param shopCode  店铺编码
      * @param timestamp 时间戳
+     * @param sequence  序号
      * @return 卡号ID
      */
-    protected long combine(String shopId, Long timestamp) {
-        long shopCode = IdUtils.getShopCode(shopId, maxShopCode);
+    protected long combine(long shopCode, long timestamp, long sequence) {
         long originId = shopCode << shopOffset
                 | timestamp << timeOffset
                 | machineId << machineOffset
                 | sequence << sequenceOffset;
 
-        int validationCode = IdUtils.getValidationCode(originId, maxCode);
+        int validationCode = LuhnChecksum.validationCode(originId, maxCode);
         return originId + validationCode;
     }
 
@@ -251,14 +463,31 @@ public class ShopCardIdGenerator implements CardIdGeneratorable {
      * 数据初始化
      */
     private void init() {
-        sequenceOffset = validationBits;
-        machineOffset = sequenceOffset + sequenceBits;
-        timeOffset = machineOffset + machineBits;
-        shopOffset = timeOffset + timeBits;
+        layout = new BitLayout(4, timeBits, machineBits, sequenceBits, validationBits);
+        sequenceOffset = layout.getOffset(SEQUENCE_FIELD);
+        machineOffset = layout.getOffset(MACHINE_FIELD);
+        timeOffset = layout.getOffset(TIME_FIELD);
+        shopOffset = layout.getOffset(SHOP_FIELD);
         maxSequence = ~(-1L << sequenceBits);
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new SequenceState();
+        }
         maxCode = ~(-1 << validationBits);
         startTimeStamp = IdUtils.getTimeStampSecond(startTimeString);
-        maxShopCode = 14L;
+    }
+
+    /**
+     * 获取实时生成在指定秒内可以使用的最大序号，批量预留的秒只能使用低半部分
+     *
+     * @param state 分区状态
+     * @param stamp 时间戳（秒）
+     * @return 最大序号
+     */
+    private long getLiveMaxSequence(SequenceState state, long stamp) {
+        if (stamp >= state.getReservedFirstStamp() && stamp <= state.getReservedStamp()) {
+            return getReservedSequenceStart() - 1;
+        }
+        return maxSequence;
     }
 
     /**
@@ -272,30 +501,105 @@ public class ShopCardIdGenerator implements CardIdGeneratorable {
             return false;
         }
 
-        return validateCode(id, startTimeStamp, timeBits, timeOffset, validationBits, maxCode);
+        return validateCode(id, startTimeStamp, timeBits, timeOffset, validationBits, maxCode,
+                timeSource.currentTimeMillis() / 1000);
     }
 
     /**
-     * 获取当前时间戳 单位秒
+     * 开启混合逻辑时钟，时钟回拨时在允许的漂移范围内继续生成ID。需要在生成ID之前设置
      *
-     * @return 时间戳（秒）
+     * @param hybridClock 混合逻辑时钟，为null时关闭
      */
-    private long getCurrentSecond() {
-        return System.currentTimeMillis() / 1000;
+    public void setHybridClock(HybridLogicalClock hybridClock) {
+        this.hybridClock = hybridClock;
     }
 
     /**
-     * 获取下一秒钟
+     * 设置店铺编号缓存，默认缓存4096个店铺。多个生成器可以共享同一个缓存
      *
-     * @return 时间戳（秒）
+     * @param shopCodeCache 店铺编号缓存
+     */
+    public void setShopCodeCache(ShopCodeCache shopCodeCache) {
+        if (null == shopCodeCache) {
+            throw new IllegalArgumentException("Shop code cache cannot be null");
+        }
+
+        this.shopCodeCache = shopCodeCache;
+    }
+
+    /**
+     * 获取店铺编号缓存
+     *
+     * @return 店铺编号缓存
+     */
+    public ShopCodeCache getShopCodeCache() {
+        return shopCodeCache;
+    }
+
+    /**
+     * 设置时间源，默认为系统时间。需要在生成ID之前设置
+     *
+     * @param timeSource 时间源
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
+        }
+
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * 设置序号用尽时的等待策略，默认按剩余时间挂起。需要在生成ID之前设置
+     *
+     * @param waitStrategy 等待策略
+     */
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        if (null == waitStrategy) {
+            throw new IllegalArgumentException("Wait strategy cannot be null");
+        }
+
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 获取序号用尽时的等待策略
+     *
+     * @return 等待策略
      */
-    private long getNextSecond() {
-        long second = getCurrentSecond();
-        while (second <= lastStamp) {
-            IdUtils.sleep(20);
-            second = getCurrentSecond();
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * 设置时间戳检查点，只使用大于上次记录的高水位的时间戳。需要在生成卡号之前、设置时间源和等待策略之后设置
+     *
+     * @param checkpoint 时间戳检查点，时间戳单位为秒
+     * @param waitPast   当前时间没有超过高水位时，true表示等待时间超过高水位，false表示拒绝生成卡号直到时间超过高水位
+     */
+    public synchronized void setCheckpoint(StampCheckpoint checkpoint, boolean waitPast) {
+        if (null == checkpoint) {
+            throw new IllegalArgumentException("Checkpoint cannot be null");
+        }
+
+        long recordedStamp = checkpoint.getRecordedStamp();
+        if (waitPast) {
+            waitStrategy.waitUntil((recordedStamp + 1) * 1000, timeSource);
         }
+        for (SequenceState state : partitions) {
+            synchronized (state) {
+                state.restore(recordedStamp, maxSequence);
+            }
+        }
+        this.checkpoint = checkpoint;
+    }
 
-        return second;
+    /**
+     * 获取当前时间戳 单位秒
+     *
+     * @return 时间戳（秒）
+     */
+    private long getCurrentSecond() {
+        return timeSource.currentTimeMillis() / 1000;
     }
 }
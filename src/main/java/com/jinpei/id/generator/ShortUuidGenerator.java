@@ -1,30 +1,103 @@
 package com.jinpei.id.generator;
 
-import java.math.BigInteger;
+import com.jinpei.id.common.concurrent.PaddedAtomicLong;
+import com.jinpei.id.common.random.EntropySource;
+import com.jinpei.id.common.random.SecureRandomEntropySource;
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * 生成22位的短UUID。 字符编码为57个字符，大小写字母和数字，排除掉1、l和I，0和o易混字符
+ * <p>
+ * 编码直接在UUID的两个long上进行：把128bit拆成4个32bit分段做长除法，每次除以57^5，
+ * 余数再用int运算拆成5位57进制字符，不使用BigInteger和正则，结果与按整数转换57进制完全一致。
+ * <p>
+ * 字符编码按ASCII顺序排列，定长编码的字符串顺序与数值顺序一致。{@link #generateOrdered()}按UUIDv7的格式生成：
+ * +=======================================================================
+ * | 48bit 毫秒时间戳 | 4bit版本号7 | 12bit序号 | 2bit变体 | 62bit随机数 |
+ * +=======================================================================
+ * 同一生成器生成的短UUID字符串顺序与生成顺序一致，可以作为数据库聚簇索引的主键，避免随机主键导致的页分裂。
+ * 注意字符集大小写混用，顺序只在按字节比较时成立：MySQL中列需要使用{@code ascii_bin}、{@code utf8mb4_bin}等_bin排序规则，
+ * 或者用BINARY/VARBINARY存储，默认的大小写不敏感排序规则（如utf8mb4_general_ci）会打乱顺序。
  *
  * @author liuzhaoming
  * @date 2017/11/23
  */
 public class ShortUuidGenerator {
+    /**
+     * 57^5，小于2^30，余数左移32位后仍在long范围内
+     */
+    private static final long RADIX_POW5 = 57L * 57 * 57 * 57 * 57;
+
+    /**
+     * 32bit分段掩码
+     */
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
     /**
      * 短UUID可用字符编码，一共57个字符，大小写字母+数字，排除掉易混字符1、l和I，0和o
      */
     private final char[] alphabet = "23456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
 
-    private final BigInteger alphabetSize;
+    /**
+     * 字符到数值的反查表，非法字符为-1
+     */
+    private final byte[] alphabetIndexes = new byte[128];
+
+    /**
+     * 进制
+     */
+    private final int radix;
 
     /**
      * 短UUID长度
      */
     private final int shortUuidLength;
 
+    /**
+     * 并行批量生成时每个任务的最大数量
+     */
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * 有序模式序号的最大值，12bit
+     */
+    private static final long MAX_ORDERED_SEQUENCE = 0xFFFL;
+
+    /**
+     * 有序模式毫秒切换时起始序号的随机范围，为同一毫秒内的后续序号保留空间
+     */
+    private static final int ORDERED_SEQUENCE_RANDOM_BOUND = 1 << 10;
+
+    /**
+     * 随机数来源
+     */
+    private EntropySource entropySource = SecureRandomEntropySource.INSTANCE;
+
+    /**
+     * 时间源
+     */
+    private TimeSource timeSource = SystemTimeSource.INSTANCE;
+
+    /**
+     * 有序模式的状态，高位为上一次毫秒时间戳，低12bit为序号
+     */
+    private final PaddedAtomicLong orderedState = new PaddedAtomicLong();
+
     public ShortUuidGenerator() {
-        alphabetSize = BigInteger.valueOf(alphabet.length);
+        radix = alphabet.length;
         shortUuidLength = (int) Math.ceil(32 * Math.log(16) / Math.log(alphabet.length));
+        Arrays.fill(alphabetIndexes, (byte) -1);
+        for (int i = 0; i < alphabet.length; i++) {
+            alphabetIndexes[alphabet[i]] = (byte) i;
+        }
     }
 
     /**
@@ -33,32 +106,366 @@ public class ShortUuidGenerator {
      * @return UUID
      */
     public String generate() {
-        String uuidStr = UUID.randomUUID().toString().replaceAll("-", "");
-        BigInteger number = new BigInteger(uuidStr, 16);
-        return encode(number);
+        char[] chars = new char[shortUuidLength];
+        generateRandom(chars, 0);
+        return new String(chars);
     }
 
     /**
-     * 将整数转换为57进制，不足22位前面补0（默认'2'代表0）
+     * 批量生成短UUID写入字符数组，每个短UUID后面跟一个分隔符，不为每个短UUID创建String
      *
-     * @param number 整数
-     * @return 编码
+     * @param dst       字符数组
+     * @param offset    写入的起始下标
+     * @param count     短UUID数量
+     * @param separator 分隔符，可以为空字符串
+     * @return 写入的字符数
      */
-    private String encode(BigInteger number) {
-        BigInteger value = new BigInteger(number.toString());
-        StringBuilder shortUuid = new StringBuilder();
+    public int generate(char[] dst, int offset, int count, String separator) {
+        int width = checkBulk(dst.length - offset, offset, count, separator);
+        write(dst, offset, count, separator);
+        return count * width;
+    }
 
-        while (value.compareTo(BigInteger.ZERO) > 0) {
-            BigInteger[] fracAndRemainder = value.divideAndRemainder(alphabetSize);
-            shortUuid.append(alphabet[fracAndRemainder[1].intValue()]);
-            value = fracAndRemainder[0];
+    /**
+     * 批量生成短UUID写入CharBuffer，每个短UUID后面跟一个分隔符
+     *
+     * @param dst       CharBuffer，从当前position开始写入
+     * @param count     短UUID数量
+     * @param separator 分隔符，可以为空字符串
+     */
+    public void generate(CharBuffer dst, int count, String separator) {
+        int width = checkBulk(dst.remaining(), 0, count, separator);
+        if (dst.hasArray()) {
+            write(dst.array(), dst.arrayOffset() + dst.position(), count, separator);
+            dst.position(dst.position() + count * width);
+            return;
         }
 
-        int padding = shortUuidLength - shortUuid.length();
-        for (int i = 0; i < padding; i++) {
-            shortUuid.append(alphabet[0]);
+        char[] chars = new char[shortUuidLength];
+        for (int i = 0; i < count; i++) {
+            generateRandom(chars, 0);
+            dst.put(chars).put(separator);
         }
+    }
 
-        return shortUuid.reverse().toString();
+    /**
+     * 批量生成短UUID追加到StringBuilder，每个短UUID后面跟一个分隔符
+     *
+     * @param dst       StringBuilder
+     * @param count     短UUID数量
+     * @param separator 分隔符，可以为空字符串
+     */
+    public void generate(StringBuilder dst, int count, String separator) {
+        int width = checkBulk(Integer.MAX_VALUE - dst.length(), 0, count, separator);
+        dst.ensureCapacity(dst.length() + count * width);
+        char[] chars = new char[shortUuidLength];
+        for (int i = 0; i < count; i++) {
+            generateRandom(chars, 0);
+            dst.append(chars).append(separator);
+        }
+    }
+
+    /**
+     * 批量生成短UUID以ASCII编码写入ByteBuffer，每个短UUID后面跟一个分隔符
+     *
+     * @param dst       ByteBuffer，从当前position开始写入
+     * @param count     短UUID数量
+     * @param separator 分隔符，只能包含ASCII字符，可以为空字符串
+     */
+    public void generate(ByteBuffer dst, int count, String separator) {
+        checkBulk(dst.remaining(), 0, count, separator);
+        byte[] separatorBytes = new byte[separator.length()];
+        for (int i = 0; i < separatorBytes.length; i++) {
+            char character = separator.charAt(i);
+            if (character >= 128) {
+                throw new IllegalArgumentException("The separator should only contain ascii chars");
+            }
+            separatorBytes[i] = (byte) character;
+        }
+
+        char[] chars = new char[shortUuidLength];
+        for (int i = 0; i < count; i++) {
+            generateRandom(chars, 0);
+            for (char character : chars) {
+                dst.put((byte) character);
+            }
+            dst.put(separatorBytes);
+        }
+    }
+
+    /**
+     * 使用ForkJoinPool并行批量生成短UUID写入字符数组，每个任务写入互不重叠的区间。
+     * 默认的SecureRandom会在多线程间串行，并行生成时建议使用{@link com.jinpei.id.common.random.ChaCha20EntropySource}
+     *
+     * @param dst       字符数组
+     * @param offset    写入的起始下标
+     * @param count     短UUID数量
+     * @param separator 分隔符，可以为空字符串
+     * @param pool      线程池
+     * @return 写入的字符数
+     */
+    public int generateParallel(char[] dst, int offset, int count, String separator, ForkJoinPool pool) {
+        int width = checkBulk(dst.length - offset, offset, count, separator);
+        pool.invoke(new BulkTask(dst, offset, count, separator));
+        return count * width;
+    }
+
+    /**
+     * 生成一个随机的短UUID写入字符数组
+     *
+     * @param dst    字符数组
+     * @param offset 写入的起始下标
+     */
+    private void generateRandom(char[] dst, int offset) {
+        long mostSigBits = entropySource.nextLong();
+        long leastSigBits = entropySource.nextLong();
+        //与UUID.randomUUID()一致，设置版本号4和IETF变体
+        mostSigBits = (mostSigBits & ~0xF000L) | 0x4000L;
+        leastSigBits = (leastSigBits & ~(0xC0L << 56)) | (0x80L << 56);
+        encode(mostSigBits, leastSigBits, dst, offset);
+    }
+
+    /**
+     * 连续写入多个短UUID和分隔符
+     *
+     * @param dst       字符数组
+     * @param offset    写入的起始下标
+     * @param count     短UUID数量
+     * @param separator 分隔符
+     */
+    private void write(char[] dst, int offset, int count, String separator) {
+        int separatorLength = separator.length();
+        int position = offset;
+        for (int i = 0; i < count; i++) {
+            generateRandom(dst, position);
+            position += shortUuidLength;
+            separator.getChars(0, separatorLength, dst, position);
+            position += separatorLength;
+        }
+    }
+
+    /**
+     * 校验批量生成的参数
+     *
+     * @param remaining 可写入的字符数
+     * @param offset    写入的起始下标
+     * @param count     短UUID数量
+     * @param separator 分隔符
+     * @return 每个短UUID加分隔符的字符数
+     */
+    private int checkBulk(int remaining, int offset, int count, String separator) {
+        if (null == separator) {
+            throw new IllegalArgumentException("Separator cannot be null");
+        }
+        if (offset < 0 || count < 0) {
+            throw new IllegalArgumentException("Offset and count should not be negative");
+        }
+
+        int width = shortUuidLength + separator.length();
+        if ((long) count * width > remaining) {
+            throw new IllegalArgumentException("No room for " + count + " short uuids");
+        }
+        return width;
+    }
+
+    /**
+     * 生成按时间有序的22位短UUID（UUIDv7格式），字符串顺序与生成顺序一致：
+     * 同一毫秒内12bit序号自增，序号用尽或时钟回拨时时间戳在上一次的基础上前进，保证单调递增。
+     * 顺序按字节比较，MySQL中列需要使用_bin排序规则或二进制类型存储
+     *
+     * @return 短UUID
+     */
+    public String generateOrdered() {
+        long next;
+        for (; ; ) {
+            long current = orderedState.get();
+            long lastStamp = current >>> 12;
+            long curStamp = timeSource.currentTimeMillis();
+            if (curStamp > lastStamp) {
+                next = curStamp << 12 | (entropySource.nextLong() & (ORDERED_SEQUENCE_RANDOM_BOUND - 1));
+            } else if ((current & MAX_ORDERED_SEQUENCE) < MAX_ORDERED_SEQUENCE) {
+                next = current + 1;
+            } else {
+                next = (lastStamp + 1) << 12;
+            }
+
+            if (orderedState.compareAndSet(current, next)) {
+                break;
+            }
+        }
+
+        long mostSigBits = (next >>> 12) << 16 | 0x7000L | (next & MAX_ORDERED_SEQUENCE);
+        long leastSigBits = (entropySource.nextLong() & ~(0xC0L << 56)) | (0x80L << 56);
+        char[] chars = new char[shortUuidLength];
+        encode(mostSigBits, leastSigBits, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * 解析有序短UUID中的毫秒时间戳
+     *
+     * @param shortUuid {@link #generateOrdered()}生成的短UUID
+     * @return 毫秒时间戳
+     */
+    public long parseTimestamp(String shortUuid) {
+        UUID uuid = decode(shortUuid);
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("The short uuid is not time ordered");
+        }
+
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * 设置时间源，默认为系统时间。需要在生成之前设置
+     *
+     * @param timeSource 时间源
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
+        }
+
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * 设置随机数来源，默认为共享的SecureRandom（与UUID.randomUUID()相同）。
+     * 多线程大量生成时可以使用{@link com.jinpei.id.common.random.ChaCha20EntropySource}避免争用。需要在生成之前设置
+     *
+     * @param entropySource 随机数来源
+     */
+    public void setEntropySource(EntropySource entropySource) {
+        if (null == entropySource) {
+            throw new IllegalArgumentException("Entropy source cannot be null");
+        }
+
+        this.entropySource = entropySource;
+    }
+
+    /**
+     * 将UUID编码为22位的短UUID
+     *
+     * @param uuid UUID
+     * @return 短UUID
+     */
+    public String encode(UUID uuid) {
+        char[] chars = new char[shortUuidLength];
+        encode(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * 将128bit无符号整数转换为57进制，写入调用方提供的数组，不足22位前面补0（默认'2'代表0），不产生任何对象分配
+     *
+     * @param mostSigBits  高64bit
+     * @param leastSigBits 低64bit
+     * @param dst          字符数组
+     * @param offset       写入的起始下标，共写入22个字符
+     */
+    public void encode(long mostSigBits, long leastSigBits, char[] dst, int offset) {
+        if (offset < 0 || offset > dst.length - shortUuidLength) {
+            throw new IllegalArgumentException("The char array has no room for " + shortUuidLength + " chars");
+        }
+
+        long limb3 = mostSigBits >>> 32;
+        long limb2 = mostSigBits & INT_MASK;
+        long limb1 = leastSigBits >>> 32;
+        long limb0 = leastSigBits & INT_MASK;
+        int position = offset + shortUuidLength - 1;
+        //4次除以57^5得到低20位字符，剩余的值小于57^2
+        for (int i = 0; i < 4; i++) {
+            long remainder = limb3 % RADIX_POW5;
+            limb3 /= RADIX_POW5;
+            long current = remainder << 32 | limb2;
+            limb2 = current / RADIX_POW5;
+            current = (current % RADIX_POW5) << 32 | limb1;
+            limb1 = current / RADIX_POW5;
+            current = (current % RADIX_POW5) << 32 | limb0;
+            limb0 = current / RADIX_POW5;
+
+            int digits = (int) (current % RADIX_POW5);
+            for (int j = 0; j < 5; j++) {
+                dst[position--] = alphabet[digits % radix];
+                digits /= radix;
+            }
+        }
+
+        int digits = (int) limb0;
+        dst[position--] = alphabet[digits % radix];
+        dst[position] = alphabet[digits / radix];
+    }
+
+    /**
+     * 将22位的短UUID解码为UUID
+     *
+     * @param shortUuid 短UUID
+     * @return UUID
+     */
+    public UUID decode(String shortUuid) {
+        if (null == shortUuid || shortUuid.length() != shortUuidLength) {
+            throw new IllegalArgumentException("The short uuid should be " + shortUuidLength + " chars");
+        }
+
+        long limb3 = 0L;
+        long limb2 = 0L;
+        long limb1 = 0L;
+        long limb0 = 0L;
+        for (int i = 0; i < shortUuidLength; i++) {
+            char character = shortUuid.charAt(i);
+            int digit = character < 128 ? alphabetIndexes[character] : -1;
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid short uuid char " + character);
+            }
+
+            long current = limb0 * radix + digit;
+            limb0 = current & INT_MASK;
+            current = limb1 * radix + (current >>> 32);
+            limb1 = current & INT_MASK;
+            current = limb2 * radix + (current >>> 32);
+            limb2 = current & INT_MASK;
+            current = limb3 * radix + (current >>> 32);
+            limb3 = current & INT_MASK;
+            if (current >>> 32 != 0) {
+                throw new IllegalArgumentException("The short uuid is out of 128 bits range");
+            }
+        }
+
+        return new UUID(limb3 << 32 | limb2, limb1 << 32 | limb0);
+    }
+
+    /**
+     * 并行批量生成任务，按数量二分，直到不超过阈值后串行写入
+     */
+    private class BulkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final char[] dst;
+
+        private final int offset;
+
+        private final int count;
+
+        private final String separator;
+
+        BulkTask(char[] dst, int offset, int count, String separator) {
+            this.dst = dst;
+            this.offset = offset;
+            this.count = count;
+            this.separator = separator;
+        }
+
+        @Override
+        protected void compute() {
+            if (count <= PARALLEL_THRESHOLD) {
+                write(dst, offset, count, separator);
+                return;
+            }
+
+            int half = count >>> 1;
+            int width = shortUuidLength + separator.length();
+            invokeAll(new BulkTask(dst, offset, half, separator),
+                    new BulkTask(dst, offset + half * width, count - half, separator));
+        }
     }
 }
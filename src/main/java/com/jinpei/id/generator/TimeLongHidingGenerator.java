@@ -2,6 +2,8 @@ package com.jinpei.id.generator;
 
 import com.jinpei.id.common.algorithm.ChaCha20;
 import com.jinpei.id.common.algorithm.Hmac;
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
 import com.jinpei.id.common.utils.IdUtils;
 
 import java.math.BigInteger;
@@ -39,6 +41,11 @@ public class TimeLongHidingGenerator extends NumberHidingGenerator {
      */
     private static final long MINUTE_STAMP_DIGIT = 100000000L;
 
+    /**
+     * 时间源
+     */
+    private TimeSource timeSource = SystemTimeSource.INSTANCE;
+
 
     /**
      * 构造函数
@@ -64,7 +71,7 @@ public class TimeLongHidingGenerator extends NumberHidingGenerator {
             throw new IllegalArgumentException("The number should be positive");
         }
 
-        long timeMills = System.currentTimeMillis();
+        long timeMills = timeSource.currentTimeMillis();
         int currentMinuteStampInDay = getCurrentMinuteStampInDay(timeMills);
         long timeStamp = currentMinuteStampInDay;
         ChaCha20 chaCha20 = createChaChar20();
@@ -80,6 +87,19 @@ public class TimeLongHidingGenerator extends NumberHidingGenerator {
         return encode(randomBytes, generateNumberString);
     }
 
+    /**
+     * 设置时间源，默认为系统时间。需要在生成ID之前设置
+     *
+     * @param timeSource 时间源
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
+        }
+
+        this.timeSource = timeSource;
+    }
+
     /**
      * 还原正整数，如果不合法返回Null
      *
@@ -110,7 +130,7 @@ public class TimeLongHidingGenerator extends NumberHidingGenerator {
         String bitsString = IdUtils.bigIntToBits(new BigInteger(numberSb.toString(), 32), 95);
         Long originNumber = Long.valueOf(bitsString.substring(0, 64), 2);
         int originMinuteStampInDay = Integer.valueOf(bitsString.substring(84), 2);
-        long timeMills = System.currentTimeMillis();
+        long timeMills = timeSource.currentTimeMillis();
         if (checkTimeEffective && !checkTimeEffective(originMinuteStampInDay, timeMills)) {
             return null;
         }
@@ -1,5 +1,7 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.time.SystemTimeSource;
+import com.jinpei.id.common.time.TimeSource;
 import com.jinpei.id.common.utils.IdUtils;
 import com.jinpei.id.common.algorithm.ChaCha20;
 import com.jinpei.id.common.algorithm.Hmac;
@@ -45,6 +47,11 @@ public class TimeNumberHidingGenerator extends NumberHidingGenerator {
      */
     private static final long MAX_NUMBER = 100000000000L;
 
+    /**
+     * 时间源
+     */
+    private TimeSource timeSource = SystemTimeSource.INSTANCE;
+
     /**
      * 构造函数
      *
@@ -69,7 +76,7 @@ public class TimeNumberHidingGenerator extends NumberHidingGenerator {
             throw new IllegalArgumentException("The number should be between [0, 100000000000)");
         }
 
-        long timeMills = System.currentTimeMillis();
+        long timeMills = timeSource.currentTimeMillis();
         int currentMinuteStampInDay = getCurrentMinuteStampInDay(timeMills);
         long timeStamp = getTodayMinuteStamp(timeMills) + currentMinuteStampInDay;
         ChaCha20 chaCha20 = createChaChar20();
@@ -85,6 +92,19 @@ public class TimeNumberHidingGenerator extends NumberHidingGenerator {
         return encode(randomBytes, generateNumberString);
     }
 
+    /**
+     * 设置时间源，默认为系统时间。需要在生成ID之前设置
+     *
+     * @param timeSource 时间源
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        if (null == timeSource) {
+            throw new IllegalArgumentException("Time source cannot be null");
+        }
+
+        this.timeSource = timeSource;
+    }
+
     /**
      * 还原正整数，如果不合法返回Null
      *
@@ -104,7 +124,7 @@ public class TimeNumberHidingGenerator extends NumberHidingGenerator {
         String bitsString = IdUtils.longToBits(Long.parseLong(numberSb.toString()), 63);
         Long originNumber = Long.valueOf(bitsString.substring(0, 37), 2);
         int originMinuteStampInDay = Integer.valueOf(bitsString.substring(52), 2);
-        long timeMills = System.currentTimeMillis();
+        long timeMills = timeSource.currentTimeMillis();
         if (!checkTimeEffective(originMinuteStampInDay, timeMills)) {
             return null;
         }
@@ -0,0 +1,132 @@
+package com.jinpei.id.generator.base;
+
+import java.util.Arrays;
+
+/**
+ * ID的bit布局，根据各字段的bit位数预先计算偏移和掩码，只用移位和位与提取、组合字段，不转换二进制字符串。
+ * <p>
+ * 字段按从高位到低位的顺序定义，下标从0开始。最高位字段的掩码包含偏移之上的所有bit，
+ * 与按二进制字符串截取最高位字段的结果一致。布局创建后不可修改，可以在多线程间共享。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public final class BitLayout {
+    /**
+     * 各字段bit位数
+     */
+    private final int[] widths;
+
+    /**
+     * 各字段左移bit数
+     */
+    private final int[] offsets;
+
+    /**
+     * 各字段右移后的掩码
+     */
+    private final long[] masks;
+
+    /**
+     * 构造函数
+     *
+     * @param widths 各字段bit位数，从高位到低位
+     */
+    public BitLayout(int... widths) {
+        if (null == widths || widths.length == 0) {
+            throw new IllegalArgumentException("The layout should have at least one field");
+        }
+
+        this.widths = Arrays.copyOf(widths, widths.length);
+        this.offsets = new int[widths.length];
+        this.masks = new long[widths.length];
+        int offset = 0;
+        for (int i = widths.length - 1; i >= 0; i--) {
+            if (widths[i] <= 0) {
+                throw new IllegalArgumentException("The bits should be larger than 0");
+            }
+
+            offsets[i] = offset;
+            offset += widths[i];
+            if (offset > 64) {
+                throw new IllegalArgumentException("The sum of bits should not be larger than 64");
+            }
+            masks[i] = i == 0 ? -1L >>> offsets[i] : ~(-1L << widths[i]);
+        }
+    }
+
+    /**
+     * 获取字段数量
+     *
+     * @return 字段数量
+     */
+    public int size() {
+        return widths.length;
+    }
+
+    /**
+     * 获取字段bit位数
+     *
+     * @param field 字段下标
+     * @return bit位数
+     */
+    public int getWidth(int field) {
+        return widths[field];
+    }
+
+    /**
+     * 获取字段左移bit数
+     *
+     * @param field 字段下标
+     * @return 左移bit数
+     */
+    public int getOffset(int field) {
+        return offsets[field];
+    }
+
+    /**
+     * 获取字段右移后的掩码
+     *
+     * @param field 字段下标
+     * @return 掩码
+     */
+    public long getMask(int field) {
+        return masks[field];
+    }
+
+    /**
+     * 提取字段值
+     *
+     * @param id    ID
+     * @param field 字段下标
+     * @return 字段值
+     */
+    public long get(long id, int field) {
+        return id >>> offsets[field] & masks[field];
+    }
+
+    /**
+     * 把字段值放入ID，字段原有的bit需要为0
+     *
+     * @param id    ID
+     * @param field 字段下标
+     * @param value 字段值，超出字段位数的高位被丢弃
+     * @return 新的ID
+     */
+    public long compose(long id, int field, long value) {
+        return id | (value & masks[field]) << offsets[field];
+    }
+
+    /**
+     * 提取所有字段写入解析结果，解析结果可以重复使用
+     *
+     * @param id      ID
+     * @param decoded 解析结果
+     */
+    public void decode(long id, DecodedId decoded) {
+        decoded.reset(widths.length);
+        for (int i = 0; i < widths.length; i++) {
+            decoded.set(i, id >>> offsets[i] & masks[i]);
+        }
+    }
+}
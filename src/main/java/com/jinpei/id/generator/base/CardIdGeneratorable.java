@@ -1,8 +1,9 @@
 package com.jinpei.id.generator.base;
 
-import com.jinpei.id.common.utils.IdUtils;
+import com.jinpei.id.common.algorithm.LuhnChecksum;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 卡号生成器接口
@@ -25,27 +26,42 @@ public interface CardIdGeneratorable {
      * @return 验证结果，合法返回true，反之false
      */
     default boolean validateCode(long id, long startTimeStamp, int timeBits, int timeOffset, int validationBits, int maxCode) {
-        String bitString = Long.toBinaryString(id);
-        int bitLength = bitString.length();
-        String codeBitString = bitString.substring(bitLength - validationBits);
-        int validationCode = Integer.parseInt(codeBitString, 2);
+        return validateCode(id, startTimeStamp, timeBits, timeOffset, validationBits, maxCode,
+                System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * 校验验证码
+     *
+     * @param id             ID
+     * @param startTimeStamp 起始时间戳
+     * @param timeBits       时间bit位数
+     * @param timeOffset     时间偏移位数
+     * @param validationBits 验证码bit位数
+     * @param maxCode        最大校验码
+     * @param currentSecond  当前时间戳（秒）
+     * @return 验证结果，合法返回true，反之false
+     */
+    default boolean validateCode(long id, long startTimeStamp, int timeBits, int timeOffset, int validationBits, int maxCode,
+                                 long currentSecond) {
+        int validationCode = (int) (id & ~(-1L << validationBits));
         long originId = id - validationCode;
-        if (validationCode != IdUtils.getValidationCode(originId, maxCode)) {
+        if (validationCode != LuhnChecksum.validationCode(originId, maxCode)) {
             return false;
         }
 
-        long timestamp = Long.parseLong(bitString.substring(bitLength - timeOffset - timeBits, bitLength - timeOffset), 2);
-        long currentStamp = System.currentTimeMillis() / 1000 - startTimeStamp;
+        long timestamp = id >>> timeOffset & ~(-1L << timeBits);
+        long currentStamp = currentSecond - startTimeStamp;
         long timeDelta = currentStamp - timestamp;
         return timeDelta > -3600;
     }
 
     /**
-     * 生成一个随机数作为sequence的起始数
+     * 生成一个随机数作为sequence的起始数，使用线程本地随机数，不争用共享的种子
      *
      * @return sequence起始数
      */
     default long randomSequence() {
-        return RANDOM.nextInt(10);
+        return ThreadLocalRandom.current().nextInt(10);
     }
 }
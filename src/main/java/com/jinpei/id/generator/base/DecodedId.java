@@ -0,0 +1,90 @@
+package com.jinpei.id.generator.base;
+
+/**
+ * ID解析结果，保存{@link BitLayout}提取的各字段原始值和换算后的毫秒时间戳。
+ * <p>
+ * 解析结果可以重复使用，网关等高频校验场景每个线程持有一个实例，避免每次解析都创建Long数组。非线程安全
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public final class DecodedId {
+    /**
+     * 各字段原始值
+     */
+    private long[] fields = new long[8];
+
+    /**
+     * 字段数量
+     */
+    private int size;
+
+    /**
+     * 毫秒时间戳
+     */
+    private long timestamp;
+
+    /**
+     * 获取字段原始值
+     *
+     * @param field 字段下标，与生成器定义的字段常量一致
+     * @return 字段值
+     */
+    public long get(int field) {
+        if (field < 0 || field >= size) {
+            throw new IllegalArgumentException("Field index " + field + " is out of range " + size);
+        }
+
+        return fields[field];
+    }
+
+    /**
+     * 获取字段数量
+     *
+     * @return 字段数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取毫秒时间戳，由生成器根据时间字段和起始时间换算
+     *
+     * @return 毫秒时间戳
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 设置毫秒时间戳
+     *
+     * @param timestamp 毫秒时间戳
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * 清空结果，准备写入新的字段
+     *
+     * @param size 字段数量
+     */
+    void reset(int size) {
+        if (size > fields.length) {
+            fields = new long[size];
+        }
+        this.size = size;
+        this.timestamp = 0L;
+    }
+
+    /**
+     * 设置字段原始值
+     *
+     * @param field 字段下标
+     * @param value 字段值
+     */
+    void set(int field, long value) {
+        fields[field] = value;
+    }
+}
@@ -0,0 +1,142 @@
+package com.jinpei.id.generator.base;
+
+import com.jinpei.id.common.time.TimeSource;
+import com.jinpei.id.common.wait.WaitStrategy;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 混合逻辑时钟（Hybrid Logical Clock）策略，用于时钟回拨时继续生成ID。
+ * <p>
+ * 默认情况下，生成器发现当前时间小于上一次时间戳时会抛出"Clock moved backwards"异常，
+ * NTP把时钟往回调几毫秒就会导致一批请求失败。开启混合逻辑时钟后：
+ * 1. 时钟回拨时，生成器继续使用上一次的时间戳（逻辑时间）分配序号；
+ * 2. 逻辑时间的序号用尽后，逻辑时间前进一个单位（毫秒或秒），而不是等待物理时间；
+ * 3. 逻辑时间领先物理时间的幅度不能超过最大漂移量，超过后仍然拒绝生成ID（或等待物理时间追上）。
+ * 物理时间追上逻辑时间后，生成器自动回到物理时间。物理时间落后期间，每次在逻辑时间上分配序号，借用计数都会加一。
+ * <p>
+ * 一个实例只能被一个生成器使用，否则借用计数会混在一起。
+ * <p>
+ * 生成器统一通过静态方法{@link #borrowStamp}、{@link #tryNextStamp}、{@link #nextStamp}处理时钟回拨和序号用尽，
+ * 未开启混合逻辑时钟时传入null。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class HybridLogicalClock {
+    /**
+     * 逻辑时间领先物理时间的最大毫秒数
+     */
+    private final long maxDriftMillis;
+
+    /**
+     * 借用逻辑时间的次数
+     */
+    private final LongAdder borrowCount = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param maxDriftMillis 逻辑时间领先物理时间的最大毫秒数
+     */
+    public HybridLogicalClock(long maxDriftMillis) {
+        if (maxDriftMillis <= 0) {
+            throw new IllegalArgumentException("Max drift millis should be larger than 0");
+        }
+
+        this.maxDriftMillis = maxDriftMillis;
+    }
+
+    /**
+     * 尝试借用逻辑时间戳，逻辑时间戳的起始时刻领先当前物理时间不超过最大漂移量时借用成功
+     *
+     * @param stamp         要借用的时间戳，单位为tickMillis
+     * @param currentMillis 当前物理时间，单位毫秒
+     * @param tickMillis    时间戳单位对应的毫秒数，毫秒时间戳为1，秒时间戳为1000
+     * @return 借用成功返回true，反之false
+     */
+    public boolean tryBorrow(long stamp, long currentMillis, long tickMillis) {
+        if (stamp * tickMillis - currentMillis > maxDriftMillis) {
+            return false;
+        }
+
+        borrowCount.increment();
+        return true;
+    }
+
+    /**
+     * 时钟回拨时，在混合逻辑时钟允许的漂移范围内继续使用上一次时间戳，否则拒绝生成ID
+     *
+     * @param clock         混合逻辑时钟，为null时表示未开启
+     * @param lastStamp     上一次时间戳，单位为tickMillis
+     * @param currentMillis 当前物理时间，单位毫秒
+     * @param tickMillis    时间戳单位对应的毫秒数
+     * @return 可用的时间戳
+     */
+    public static long borrowStamp(HybridLogicalClock clock, long lastStamp, long currentMillis, long tickMillis) {
+        if (null != clock && clock.tryBorrow(lastStamp, currentMillis, tickMillis)) {
+            return lastStamp;
+        }
+
+        throw new IllegalArgumentException("Clock moved backwards. Refusing to generate id");
+    }
+
+    /**
+     * 不等待地获取下一个时间戳，物理时间已经进入下一个单位或者混合逻辑时钟允许借用下一个时间戳时返回
+     *
+     * @param clock         混合逻辑时钟，为null时表示未开启
+     * @param lastStamp     上一次时间戳，单位为tickMillis
+     * @param currentMillis 当前物理时间，单位毫秒
+     * @param tickMillis    时间戳单位对应的毫秒数
+     * @return 下一个时间戳，需要等待物理时间前进时返回-1
+     */
+    public static long tryNextStamp(HybridLogicalClock clock, long lastStamp, long currentMillis, long tickMillis) {
+        long stamp = currentMillis / tickMillis;
+        if (stamp > lastStamp) {
+            return stamp;
+        }
+        if (null != clock && clock.tryBorrow(lastStamp + 1, currentMillis, tickMillis)) {
+            return lastStamp + 1;
+        }
+
+        return -1L;
+    }
+
+    /**
+     * 获取下一个时间戳，无法借用时通过等待策略等待物理时间进入下一个单位
+     *
+     * @param clock        混合逻辑时钟，为null时表示未开启
+     * @param lastStamp    上一次时间戳，单位为tickMillis
+     * @param timeSource   时间源
+     * @param waitStrategy 等待策略
+     * @param tickMillis   时间戳单位对应的毫秒数
+     * @return 下一个时间戳
+     */
+    public static long nextStamp(HybridLogicalClock clock, long lastStamp, TimeSource timeSource,
+                                 WaitStrategy waitStrategy, long tickMillis) {
+        long stamp = tryNextStamp(clock, lastStamp, timeSource.currentTimeMillis(), tickMillis);
+        if (stamp >= 0) {
+            return stamp;
+        }
+
+        return waitStrategy.waitUntil((lastStamp + 1) * tickMillis, timeSource) / tickMillis;
+    }
+
+    /**
+     * 获取最大漂移毫秒数
+     *
+     * @return 最大漂移毫秒数
+     */
+    public long getMaxDriftMillis() {
+        return maxDriftMillis;
+    }
+
+    /**
+     * 获取借用逻辑时间的次数
+     *
+     * @return 借用次数
+     */
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+}
@@ -0,0 +1,34 @@
+package com.jinpei.id.generator.base;
+
+/**
+ * ID订阅者，语义与java.util.concurrent.Flow.Subscriber一致，但按块推送基本类型的ID，不产生装箱对象。
+ * 项目以JDK 8为编译目标，无法直接使用Flow，需要时可以很容易地适配为Flow.Subscriber。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public interface IdSubscriber {
+    /**
+     * 订阅成功，在该回调或之后通过subscription.request请求ID
+     *
+     * @param subscription 订阅关系
+     */
+    void onSubscribe(IdSubscription subscription);
+
+    /**
+     * 推送一块ID，块的数量不会超过已请求但尚未推送的数量。
+     * 数组会被发布者复用，需要保留ID时在回调内复制
+     *
+     * @param ids    ID数组
+     * @param offset 起始下标
+     * @param length ID数量
+     */
+    void onNext(long[] ids, int offset, int length);
+
+    /**
+     * 生成ID失败，例如时钟回拨，之后不会再推送
+     *
+     * @param throwable 异常
+     */
+    void onError(Throwable throwable);
+}
@@ -0,0 +1,21 @@
+package com.jinpei.id.generator.base;
+
+/**
+ * ID订阅关系，语义与java.util.concurrent.Flow.Subscription一致
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public interface IdSubscription {
+    /**
+     * 请求n个ID，累计请求数达到Long.MAX_VALUE时视为不限数量
+     *
+     * @param n ID数量，必须大于0
+     */
+    void request(long n);
+
+    /**
+     * 取消订阅，之后不会再推送
+     */
+    void cancel();
+}
@@ -0,0 +1,62 @@
+package com.jinpei.id.generator.base;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 一个分区的序号状态，包括上一次时间戳和序号。
+ * <p>
+ * ID前缀字段（系统编号、店铺编码、订单类型等）不同的ID不会重复，生成器为每个前缀值维护一个独立的状态，
+ * 以状态对象为锁，不同分区之间互不阻塞，每个分区各自拥有完整的序号空间。读写需要持有该状态对象的锁
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+@Getter
+@Setter
+public final class SequenceState {
+    /**
+     * 上一次时间戳
+     */
+    private long lastStamp = -1L;
+
+    /**
+     * 序号
+     */
+    private long sequence;
+
+    /**
+     * 批量预留的第一秒，与{@link #reservedStamp}组成连续的预留区间
+     */
+    private long reservedFirstStamp = -1L;
+
+    /**
+     * 批量预留的最后一秒，预留区间内每秒的高半部分序号归批量发卡，实时生成只使用低半部分
+     */
+    private long reservedStamp = -1L;
+
+    public SequenceState() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param sequence 初始序号
+     */
+    public SequenceState(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * 恢复到检查点记录的高水位，之后该分区只使用大于高水位的时间戳
+     *
+     * @param recordedStamp 检查点记录的高水位
+     * @param maxSequence   最大序号
+     */
+    public void restore(long recordedStamp, long maxSequence) {
+        if (recordedStamp >= lastStamp) {
+            lastStamp = recordedStamp;
+            sequence = maxSequence;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.jinpei.id.generator.base;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界的店铺编号缓存，店铺ID到{@link ShopKey}，按CLOCK算法淘汰：
+ * 1. 命中时只读ConcurrentHashMap，访问位已置位时不写内存，不产生对象分配；
+ * 2. 未命中时在锁外解析店铺ID，加锁插入环形数组，已满时时钟指针跳过访问位为1的条目并清除访问位，淘汰第一个访问位为0的条目；
+ * 3. 热点店铺在指针转一圈之前会被再次访问，不会被淘汰，长尾店铺按近似LRU的顺序淘汰。
+ * <p>
+ * 同一个缓存可以在多个卡号、激活码生成器之间共享。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class ShopCodeCache {
+    /**
+     * 默认最大条目数
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * 最大条目数
+     */
+    private final int capacity;
+
+    /**
+     * 店铺ID到缓存条目
+     */
+    private final ConcurrentHashMap<String, Node> nodes;
+
+    /**
+     * 环形数组，时钟指针在其上移动，由this锁保护
+     */
+    private final Node[] ring;
+
+    /**
+     * 当前条目数，由this锁保护
+     */
+    private int size;
+
+    /**
+     * 时钟指针，由this锁保护
+     */
+    private int hand;
+
+    /**
+     * 命中次数
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * 未命中次数
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * 淘汰次数
+     */
+    private final LongAdder evictionCount = new LongAdder();
+
+    public ShopCodeCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param capacity 最大条目数
+     */
+    public ShopCodeCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be larger than 0");
+        }
+
+        this.capacity = capacity;
+        this.nodes = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        this.ring = new Node[capacity];
+    }
+
+    /**
+     * 获取店铺编号，不在缓存中时解析并放入缓存
+     *
+     * @param shopId 店铺ID，16进制字符串
+     * @return 店铺编号
+     */
+    public ShopKey get(String shopId) {
+        if (null == shopId) {
+            throw new IllegalArgumentException("Shop id cannot be null");
+        }
+
+        Node node = nodes.get(shopId);
+        if (null != node) {
+            if (!node.referenced) {
+                node.referenced = true;
+            }
+            hitCount.increment();
+            return node.key;
+        }
+
+        missCount.increment();
+        ShopKey key = ShopKey.of(shopId);
+        insert(key);
+        return key;
+    }
+
+    /**
+     * 获取最大条目数
+     *
+     * @return 最大条目数
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取当前条目数
+     *
+     * @return 条目数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 获取命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 获取未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 获取淘汰次数
+     *
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 获取命中率，没有访问时为0
+     *
+     * @return 命中率
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0D : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "ShopCodeCache{capacity=" + capacity + ", hit=" + getHitCount() + ", miss=" + getMissCount()
+                + ", eviction=" + getEvictionCount() + "}";
+    }
+
+    /**
+     * 插入条目，已满时按CLOCK算法淘汰
+     *
+     * @param key 店铺编号
+     */
+    private synchronized void insert(ShopKey key) {
+        if (nodes.containsKey(key.getShopId())) {
+            return;
+        }
+
+        Node node = new Node(key);
+        if (size < capacity) {
+            ring[size++] = node;
+        } else {
+            for (; ; ) {
+                Node victim = ring[hand];
+                if (victim.referenced) {
+                    victim.referenced = false;
+                    hand = (hand + 1) % capacity;
+                    continue;
+                }
+
+                nodes.remove(victim.key.getShopId());
+                evictionCount.increment();
+                ring[hand] = node;
+                hand = (hand + 1) % capacity;
+                break;
+            }
+        }
+        nodes.put(key.getShopId(), node);
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Node {
+        private final ShopKey key;
+
+        /**
+         * 访问位，命中时置位，时钟指针经过时清除
+         */
+        private volatile boolean referenced;
+
+        Node(ShopKey key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.jinpei.id.generator.base;
+
+import com.jinpei.id.common.algorithm.LuhnChecksum;
+import lombok.Getter;
+
+/**
+ * 预先解析的店铺编号，包含16进制店铺ID对应的数字和店铺编码。
+ * 调用方可以持有该对象重复生成、校验卡号和激活码，完全跳过店铺ID的解析和店铺编码的计算。不可修改，可以在多线程间共享
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+@Getter
+public final class ShopKey {
+    /**
+     * 最大店铺编号校验码，店铺编码在[2, 13]之间，占4bit
+     */
+    public static final long MAX_SHOP_CODE = 14L;
+
+    /**
+     * 店铺ID，16进制字符串
+     */
+    private final String shopId;
+
+    /**
+     * 店铺ID对应的数字
+     */
+    private final long numberShopId;
+
+    /**
+     * 店铺编码
+     */
+    private final long shopCode;
+
+    private ShopKey(String shopId, long numberShopId) {
+        this.shopId = shopId;
+        this.numberShopId = numberShopId;
+        this.shopCode = LuhnChecksum.shopCode(numberShopId, MAX_SHOP_CODE);
+    }
+
+    /**
+     * 解析店铺ID
+     *
+     * @param shopId 店铺ID，16进制字符串
+     * @return 店铺编号
+     */
+    public static ShopKey of(String shopId) {
+        if (null == shopId || shopId.isEmpty()) {
+            throw new IllegalArgumentException("Shop id cannot be null");
+        }
+
+        return new ShopKey(shopId, Long.parseLong(shopId, 16));
+    }
+
+    @Override
+    public String toString() {
+        return shopId;
+    }
+}
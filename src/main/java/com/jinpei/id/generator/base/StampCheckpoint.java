@@ -0,0 +1,150 @@
+package com.jinpei.id.generator.base;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 时间戳检查点，把生成器已经使用过的时间戳上限（高水位）记录在内存映射文件中，防止重启后时钟落后导致ID重复。
+ * <p>
+ * 1. 生成器每次分配时间戳前调用{@link #ensure(long)}，时间戳没有超过已预留的高水位时只是一次volatile读；
+ * 2. 超过高水位时一次性预留reserveAhead个时间单位，把新的高水位写入映射内存，不产生系统调用，
+ * 进程崩溃后操作系统仍会把映射页写回文件；{@link #close()}时强制刷盘，防止掉电丢失；
+ * 3. 重启后{@link #getRecordedStamp()}返回上次记录的高水位，生成器只使用大于高水位的时间戳，
+ * 因此重启时可能需要等待最多reserveAhead个时间单位。
+ * <p>
+ * 文件为16字节：8字节魔数 + 8字节高水位。一个文件只能被一个生成器使用。
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ */
+public class StampCheckpoint implements AutoCloseable {
+    /**
+     * 文件魔数，"IDGENCKP"
+     */
+    private static final long MAGIC = 0x494447454E434B50L;
+
+    /**
+     * 文件大小
+     */
+    private static final int FILE_SIZE = 16;
+
+    /**
+     * 高水位在文件中的偏移
+     */
+    private static final int STAMP_OFFSET = 8;
+
+    /**
+     * 文件通道
+     */
+    private final FileChannel channel;
+
+    /**
+     * 映射内存
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * 每次预留的时间单位数
+     */
+    private final long reserveAhead;
+
+    /**
+     * 打开文件时记录的高水位，新文件为-1
+     */
+    private final long recordedStamp;
+
+    /**
+     * 当前已预留的高水位
+     */
+    private volatile long reservedStamp;
+
+    /**
+     * 构造函数，文件不存在时创建
+     *
+     * @param path         检查点文件路径
+     * @param reserveAhead 每次预留的时间单位数，与生成器的时间戳单位相同（毫秒或秒）
+     * @throws IOException 文件读写失败
+     */
+    public StampCheckpoint(Path path, long reserveAhead) throws IOException {
+        if (reserveAhead <= 0) {
+            throw new IllegalArgumentException("Reserve ahead should be larger than 0");
+        }
+
+        this.reserveAhead = reserveAhead;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        if (!created && channel.size() != FILE_SIZE) {
+            channel.close();
+            throw new IllegalArgumentException("Invalid checkpoint file " + path);
+        }
+
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        if (created) {
+            buffer.putLong(0, MAGIC);
+            buffer.putLong(STAMP_OFFSET, -1L);
+        } else if (buffer.getLong(0) != MAGIC) {
+            channel.close();
+            throw new IllegalArgumentException("Invalid checkpoint file " + path);
+        }
+
+        this.recordedStamp = buffer.getLong(STAMP_OFFSET);
+        this.reservedStamp = recordedStamp;
+    }
+
+    /**
+     * 确保高水位不小于指定时间戳，需要在使用该时间戳生成ID之前调用
+     *
+     * @param stamp 即将使用的时间戳
+     */
+    public void ensure(long stamp) {
+        if (stamp > reservedStamp) {
+            reserve(stamp);
+        }
+    }
+
+    /**
+     * 获取打开文件时记录的高水位，即上次运行可能使用过的最大时间戳，新文件为-1
+     *
+     * @return 时间戳
+     */
+    public long getRecordedStamp() {
+        return recordedStamp;
+    }
+
+    /**
+     * 获取当前已预留的高水位
+     *
+     * @return 时间戳
+     */
+    public long getReservedStamp() {
+        return reservedStamp;
+    }
+
+    /**
+     * 强制刷盘并关闭文件
+     *
+     * @throws IOException 文件读写失败
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * 预留高水位
+     *
+     * @param stamp 即将使用的时间戳
+     */
+    private synchronized void reserve(long stamp) {
+        if (stamp > reservedStamp) {
+            long reserved = stamp + reserveAhead;
+            buffer.putLong(STAMP_OFFSET, reserved);
+            reservedStamp = reserved;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.jinpei.id.common.algorithm;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ChaCha20单元测试，使用RFC 7539 2.3.2节的测试向量
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see ChaCha20
+ */
+public class ChaCha20Test {
+
+    /**
+     * RFC 7539 2.3.2节的密钥流块，块计数器为1
+     */
+    private static final String BLOCK = "10f1e7e4d13b5915500fdd1fa32071c4c7d1f4c733c068030422aa9ac3d46c4e"
+            + "d2826446079faa0914c2d705d98b02a2b5129cd1de164eb9cbd083e8a2503c4e";
+
+    @Test
+    public void keyStream() {
+        long[] dst = new long[9];
+        newChaCha20().keyStream(dst, 1, 8);
+
+        byte[] block = new byte[64];
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                block[i * 8 + j] = (byte) (dst[i + 1] >>> (8 * j));
+            }
+        }
+        Assert.assertEquals(0L, dst[0]);
+        Assert.assertArrayEquals(hex(BLOCK), block);
+    }
+
+    @Test
+    public void encrypt() {
+        //明文全为0时密文就是密钥流，512字节对应计数器1到8的8个块
+        byte[] dst = newChaCha20().encrypt(0L, 512);
+        byte[] block = new byte[64];
+        System.arraycopy(dst, 0, block, 0, 64);
+        Assert.assertArrayEquals(hex(BLOCK), block);
+
+        //后续的块与keyStream生成的密钥流一致
+        long[] keyStream = new long[64];
+        newChaCha20().keyStream(keyStream, 0, 64);
+        for (int i = 0; i < 512; i++) {
+            Assert.assertEquals((byte) (keyStream[i / 8] >>> (8 * (i % 8))), dst[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidKeyStreamCount() {
+        newChaCha20().keyStream(new long[16], 0, 7);
+    }
+
+    private ChaCha20 newChaCha20() {
+        byte[] key = new byte[32];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) i;
+        }
+        return new ChaCha20(key, hex("000000090000004a00000000"), 1);
+    }
+
+    private byte[] hex(String value) {
+        byte[] bytes = new byte[value.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(value.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,48 @@
+package com.jinpei.id.common.algorithm;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Jump一致性哈希单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see JumpConsistentHash
+ */
+public class JumpConsistentHashTest {
+
+    @Test
+    public void bucket() {
+        int[] counts = new int[16];
+        for (long key = 0; key < 160000; key++) {
+            int bucket = JumpConsistentHash.bucket(key, 16);
+            Assert.assertTrue(bucket >= 0 && bucket < 16);
+            counts[bucket]++;
+        }
+        for (int count : counts) {
+            Assert.assertTrue(count > 9000 && count < 11000);
+        }
+        Assert.assertEquals(0, JumpConsistentHash.bucket(12345L, 1));
+    }
+
+    @Test
+    public void consistent() {
+        //桶数从16增加到32，约一半的key移动，且只移动到新增的桶
+        int moved = 0;
+        for (long key = 0; key < 100000; key++) {
+            int before = JumpConsistentHash.bucket(key, 16);
+            int after = JumpConsistentHash.bucket(key, 32);
+            if (before != after) {
+                Assert.assertTrue(after >= 16);
+                moved++;
+            }
+        }
+        Assert.assertTrue(moved > 45000 && moved < 55000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBuckets() {
+        JumpConsistentHash.bucket(1L, 0);
+    }
+}
@@ -0,0 +1,129 @@
+package com.jinpei.id.common.algorithm;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Luhn校验码单元测试，与早期基于字符串的实现逐一比对
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see LuhnChecksum
+ */
+public class LuhnChecksumTest {
+
+    private static final long[] EDGE_VALUES = {0L, 1L, -1L, 9L, -9L, 10L, -10L, 99L, 100L, Long.MAX_VALUE,
+            Long.MIN_VALUE, Long.MIN_VALUE + 1, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    @Test
+    public void validationCode() {
+        for (long value : EDGE_VALUES) {
+            assertValidationCode(value);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 200000; i++) {
+            assertValidationCode(random.nextLong());
+            assertValidationCode(random.nextLong(1L << 53));
+        }
+    }
+
+    @Test
+    public void concatValidationCode() {
+        for (long high : EDGE_VALUES) {
+            for (long low : EDGE_VALUES) {
+                Assert.assertEquals(legacyValidationCode(high + "" + low, 63),
+                        LuhnChecksum.validationCode(high, low, 63));
+            }
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 200000; i++) {
+            long high = random.nextLong(1L << 53);
+            long low = random.nextBoolean() ? random.nextLong(1L << 40) : random.nextLong();
+            Assert.assertEquals(legacyValidationCode(high + "" + low, 63), LuhnChecksum.validationCode(high, low, 63));
+        }
+    }
+
+    @Test
+    public void shopCode() {
+        for (long value : EDGE_VALUES) {
+            Assert.assertEquals(legacyShopCode(value, 14L), LuhnChecksum.shopCode(value, 14L));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 200000; i++) {
+            long value = random.nextBoolean() ? random.nextLong(1L << 32) : random.nextLong();
+            Assert.assertEquals(legacyShopCode(value, 14L), LuhnChecksum.shopCode(value, 14L));
+        }
+    }
+
+    @Test
+    public void performance() {
+        int total = 2000000;
+        long start = 1L << 50;
+        long checksum = 0L;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            checksum += legacyValidationCode(String.valueOf(start + i), 127);
+        }
+        long legacySpends = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            checksum -= LuhnChecksum.validationCode(start + i, 127);
+        }
+        long arithmeticSpends = System.nanoTime() - startTime;
+        Assert.assertEquals(0L, checksum);
+        System.out.println("Per code nanos, string " + legacySpends / total + ", arithmetic " + arithmeticSpends / total);
+    }
+
+    private void assertValidationCode(long value) {
+        Assert.assertEquals(legacyValidationCode(String.valueOf(value), 127), LuhnChecksum.validationCode(value, 127));
+        Assert.assertEquals((long) legacyValidationCode(String.valueOf(value), 15),
+                LuhnChecksum.validationCode(value, 15L));
+    }
+
+    /**
+     * 早期版本基于字符串的校验码实现
+     */
+    private int legacyValidationCode(String strOriginId, int maxCode) {
+        int[] numbers = new int[strOriginId.length()];
+        for (int i = 0, length = strOriginId.length(); i < length; i++) {
+            numbers[i] = Character.getNumericValue(strOriginId.charAt(i));
+        }
+        for (int i = numbers.length - 2; i >= 0; i -= 2) {
+            numbers[i] <<= 1;
+            numbers[i] = numbers[i] / 10 + numbers[i] % 10;
+        }
+
+        int validationCode = 0;
+        for (int number : numbers) {
+            validationCode += number;
+        }
+        validationCode *= 9;
+        return validationCode % maxCode;
+    }
+
+    /**
+     * 早期版本基于字符串的店铺编码实现
+     */
+    private long legacyShopCode(long numberShopId, long maxShopCode) {
+        String strNumberShopId = String.valueOf(numberShopId);
+        int[] numbers = new int[strNumberShopId.length()];
+        for (int i = 0; i < strNumberShopId.length(); i++) {
+            numbers[i] = Character.getNumericValue(strNumberShopId.charAt(i));
+        }
+        for (int i = numbers.length - 1; i >= 0; i -= 2) {
+            numbers[i] <<= 1;
+            numbers[i] = numbers[i] / 10 + numbers[i] % 10;
+        }
+
+        int validationCode = 0;
+        for (int number : numbers) {
+            validationCode += number;
+        }
+        validationCode *= validationCode;
+        validationCode %= maxShopCode;
+        return validationCode < 2L ? validationCode + 2L : validationCode;
+    }
+}
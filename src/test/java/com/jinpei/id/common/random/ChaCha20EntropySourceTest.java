@@ -0,0 +1,32 @@
+package com.jinpei.id.common.random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ChaCha20随机数来源单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see ChaCha20EntropySource
+ */
+public class ChaCha20EntropySourceTest {
+
+    @Test
+    public void maxBlocksPerKey() {
+        //每个密钥正好生成2^31个块
+        ChaCha20EntropySource entropySource = new ChaCha20EntropySource(512, 1 << 25);
+        Assert.assertNotEquals(entropySource.nextLong(), entropySource.nextLong());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyBlocksPerKey() {
+        //每个密钥生成2^31 + 64个块，块计数器会溢出
+        new ChaCha20EntropySource(512, (1 << 25) + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBufferSize() {
+        new ChaCha20EntropySource(100, 1);
+    }
+}
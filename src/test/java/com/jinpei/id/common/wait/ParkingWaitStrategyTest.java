@@ -0,0 +1,49 @@
+package com.jinpei.id.common.wait;
+
+import com.jinpei.id.common.time.TimeSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * 挂起等待策略单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see ParkingWaitStrategy
+ */
+public class ParkingWaitStrategyTest {
+
+    @Test
+    public void overshoot() {
+        //当前毫秒已经过去0.9毫秒，真实的边界在0.1毫秒之后，不能按剩余1毫秒的一半挂起500微秒
+        ParkingWaitStrategy strategy = new ParkingWaitStrategy();
+        long[] overshoots = new long[7];
+        for (int i = 0; i < overshoots.length; i++) {
+            long baseNanos = System.nanoTime();
+            TimeSource timeSource = () -> (System.nanoTime() - baseNanos + 900000L) / 1000000L;
+            long currentMillis = strategy.waitUntil(1L, timeSource);
+            overshoots[i] = System.nanoTime() - (baseNanos + 100000L);
+            Assert.assertTrue(currentMillis >= 1L);
+        }
+
+        Arrays.sort(overshoots);
+        Assert.assertTrue("Median overshoot " + overshoots[overshoots.length / 2] + " ns",
+                overshoots[overshoots.length / 2] < 300000L);
+    }
+
+    @Test
+    public void longWait() {
+        //跨越多个毫秒时以毫秒读数变化的时刻为起点推算截止时间
+        ParkingWaitStrategy strategy = new ParkingWaitStrategy();
+        long baseNanos = System.nanoTime();
+        TimeSource timeSource = () -> (System.nanoTime() - baseNanos + 300000L) / 1000000L;
+        long currentMillis = strategy.waitUntil(20L, timeSource);
+        long overshoot = System.nanoTime() - (baseNanos + 19700000L);
+        Assert.assertTrue(currentMillis >= 20L);
+        Assert.assertTrue(overshoot >= 0L);
+        Assert.assertTrue("Overshoot " + overshoot + " ns", overshoot < 2000000L);
+        Assert.assertTrue(strategy.getParkCount() < 40);
+    }
+}
@@ -1,5 +1,7 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.generator.base.ShopCodeCache;
+import com.jinpei.id.generator.base.ShopKey;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -56,6 +58,25 @@ public class ActivationCodeGeneratorTest {
         Assert.assertFalse(codeGenerator.validate(shopId, newCode));
     }
 
+    @Test
+    public void shopKey() {
+        ShopCodeCache cache = new ShopCodeCache(16);
+        ShopCardIdGenerator shopCardIdGenerator = new ShopCardIdGenerator();
+        ActivationCodeGenerator generator = new ActivationCodeGenerator(alphabets);
+        shopCardIdGenerator.setShopCodeCache(cache);
+        generator.setShopCodeCache(cache);
+
+        ShopKey shopKey = cache.get("A1111");
+        long cardId = shopCardIdGenerator.generate(shopKey);
+        String code = generator.generate(shopKey, cardId);
+        Assert.assertTrue(generator.validate(shopKey, generator.generate("A1111", cardId)));
+        Assert.assertTrue(generator.validate(shopKey, code));
+        Assert.assertTrue(generator.validate("A1111", code));
+        Assert.assertFalse(generator.validate(ShopKey.of("A111"), code));
+        Assert.assertFalse(generator.validate((ShopKey) null, code));
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
     @Test
     public void validateCardId() {
         String shopId = "A1111";
@@ -0,0 +1,166 @@
+package com.jinpei.id.generator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 带环形缓冲区的Long类型ID生成器单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see BufferedLongIdGenerator
+ */
+public class BufferedLongIdGeneratorTest {
+
+    private final BufferedLongIdGenerator generator = new BufferedLongIdGenerator(1L, 1 << 16);
+
+    @After
+    public void close() {
+        generator.close();
+    }
+
+    @Test
+    public void generateId() {
+        Long id = generator.generate();
+        Assert.assertEquals(19, String.valueOf(id).length());
+        Assert.assertEquals(1L, (long) generator.parse(id)[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBufferSize() {
+        new BufferedLongIdGenerator(1L, 1000);
+    }
+
+    @Test
+    public void burst() throws InterruptedException {
+        generator.generate();
+        waitFilled(generator, 1 << 16);
+        long missCount = generator.getMissCount();
+
+        //环形数组填满后，一次突发领取超过每毫秒4096个的上限也不需要等待时钟
+        long[] ids = generator.generate(30000);
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue(ids[i] > ids[i - 1]);
+        }
+        Assert.assertEquals(missCount, generator.getMissCount());
+    }
+
+    @Test
+    public void unique() throws InterruptedException {
+        BufferedLongIdGenerator smallGenerator = new BufferedLongIdGenerator(1L, 1024);
+        int threadNum = 8;
+        int perThread = 50000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch endLatch = new CountDownLatch(threadNum);
+        for (int i = 0; i < threadNum; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < perThread / 100; j++) {
+                    for (int k = 0; k < 50; k++) {
+                        ids.add(smallGenerator.generate());
+                    }
+                    for (long id : smallGenerator.generate(50)) {
+                        ids.add(id);
+                    }
+                }
+                endLatch.countDown();
+            }).start();
+        }
+        endLatch.await();
+        smallGenerator.close();
+        Assert.assertEquals(threadNum * perThread, ids.size());
+        System.out.println("Ring buffer miss count " + smallGenerator.getMissCount());
+    }
+
+    @Test
+    public void producerSurvivesFailure() throws InterruptedException {
+        //时间源抛出非IllegalArgumentException的异常时，后台线程记录日志后继续运行，恢复后重新补满
+        AtomicBoolean failing = new AtomicBoolean();
+        BufferedLongIdGenerator idGenerator = new BufferedLongIdGenerator(1L, 1024);
+        idGenerator.setTimeSource(() -> {
+            if (failing.get()) {
+                throw new IllegalStateException("Time source failure");
+            }
+            return System.currentTimeMillis();
+        });
+        try {
+            idGenerator.generate();
+            waitFilled(idGenerator, 1024);
+
+            failing.set(true);
+            idGenerator.generate(1024);
+            Thread.sleep(50);
+            Assert.assertEquals(0L, idGenerator.getAvailable());
+
+            failing.set(false);
+            waitFilled(idGenerator, 1024);
+        } finally {
+            idGenerator.close();
+        }
+    }
+
+    @Test
+    public void performance() throws InterruptedException {
+        int total = 400000;
+        for (int threadNum = 1; threadNum <= 16; threadNum <<= 1) {
+            BufferedLongIdGenerator bufferedGenerator = new BufferedLongIdGenerator(1L, 1 << 19);
+            bufferedGenerator.generate();
+            waitFilled(bufferedGenerator, 1 << 19);
+            long syncTps = run(new LongIdGenerator(1L), threadNum, total / threadNum);
+            long bufferedTps = run(bufferedGenerator, threadNum, total / threadNum);
+            bufferedGenerator.close();
+            System.out.println("threads " + threadNum + ", synchronized tps " + syncTps + ", buffered tps " + bufferedTps);
+        }
+    }
+
+    /**
+     * 等待环形数组填满
+     *
+     * @param idGenerator ID生成器
+     * @param bufferSize  环形数组容量
+     */
+    private void waitFilled(BufferedLongIdGenerator idGenerator, int bufferSize) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (idGenerator.getAvailable() < bufferSize && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(bufferSize, idGenerator.getAvailable());
+    }
+
+    /**
+     * 多线程生成ID
+     *
+     * @param idGenerator ID生成器
+     * @param threadNum   线程数
+     * @param perThread   每个线程生成的ID数
+     * @return tps
+     */
+    private long run(LongIdGenerator idGenerator, int threadNum, int perThread) throws InterruptedException {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(threadNum);
+        for (int i = 0; i < threadNum; i++) {
+            new Thread(() -> {
+                try {
+                    startLatch.await();
+                    for (int j = 0; j < perThread; j++) {
+                        idGenerator.nextId();
+                    }
+                } catch (InterruptedException ignored) {
+                } finally {
+                    endLatch.countDown();
+                }
+            }).start();
+        }
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        endLatch.await();
+        long spends = Math.max(1L, System.nanoTime() - startTime);
+        return (long) threadNum * perThread * 1000000000L / spends;
+    }
+}
@@ -1,13 +1,24 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.time.ManualTimeSource;
+import com.jinpei.id.common.wait.ParkingWaitStrategy;
+import com.jinpei.id.generator.base.BitLayout;
+import com.jinpei.id.generator.base.DecodedId;
+import com.jinpei.id.generator.base.HybridLogicalClock;
+import com.jinpei.id.generator.base.StampCheckpoint;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
 
 /**
  * 16位数字卡号生成器单元测试用例
@@ -49,6 +60,190 @@ public class CardIdGeneratorTest {
         System.out.println("Sequence: " + results[3]);
     }
 
+    @Test
+    public void parseDecoded() {
+        DecodedId decoded = new DecodedId();
+        for (int system = 1; system <= 7; system++) {
+            long id = cardIdGenerator.generate(system);
+            Assert.assertTrue(cardIdGenerator.parse(id, decoded));
+            Long[] results = cardIdGenerator.parse(id);
+            Assert.assertEquals(system, decoded.get(CardIdGenerator.SYSTEM_FIELD));
+            Assert.assertEquals((long) results[1], decoded.getTimestamp());
+            Assert.assertEquals((long) results[2], decoded.get(CardIdGenerator.MACHINE_FIELD));
+            Assert.assertEquals((long) results[3], decoded.get(CardIdGenerator.SEQUENCE_FIELD));
+            Assert.assertEquals(legacyField(id, 50, -1), decoded.get(CardIdGenerator.SYSTEM_FIELD));
+            Assert.assertEquals(legacyField(id, 19, 31), decoded.get(CardIdGenerator.TIME_FIELD));
+        }
+        Assert.assertFalse(cardIdGenerator.parse(cardIdGenerator.generate() + 1, decoded));
+
+        BitLayout layout = cardIdGenerator.getLayout();
+        long id = layout.compose(layout.compose(0L, CardIdGenerator.SYSTEM_FIELD, 5L), CardIdGenerator.SEQUENCE_FIELD, 300L);
+        Assert.assertEquals(5L, layout.get(id, CardIdGenerator.SYSTEM_FIELD));
+        Assert.assertEquals(300L, layout.get(id, CardIdGenerator.SEQUENCE_FIELD));
+        Assert.assertEquals(0L, layout.get(id, CardIdGenerator.MACHINE_FIELD));
+    }
+
+    @Test
+    public void partitionedSequence() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        CardIdGenerator idGenerator = new CardIdGenerator();
+        idGenerator.setTimeSource(timeSource);
+        ParkingWaitStrategy strategy = new ParkingWaitStrategy();
+        idGenerator.setWaitStrategy(strategy);
+
+        //每个系统编号各自拥有512个序号，同一秒内7个系统共生成7*512个卡号无需等待
+        Set<Long> ids = new HashSet<>();
+        DecodedId decoded = new DecodedId();
+        for (int i = 0; i < 512; i++) {
+            for (int system = 1; system <= 7; system++) {
+                long id = idGenerator.generate(system);
+                Assert.assertTrue(idGenerator.parse(id, decoded));
+                Assert.assertEquals(i, decoded.get(CardIdGenerator.SEQUENCE_FIELD));
+                ids.add(id);
+            }
+        }
+        Assert.assertEquals(7 * 512, ids.size());
+        Assert.assertEquals(0L, strategy.getWaitCount());
+    }
+
+    @Test
+    public void parsePerformance() {
+        long[] ids = new long[512];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = cardIdGenerator.generate();
+        }
+
+        int total = 1000000;
+        long checksum = 0L;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long id = ids[i & 511];
+            checksum += legacyField(id, 7, 9);
+        }
+        long legacySpends = System.nanoTime() - startTime;
+
+        DecodedId decoded = new DecodedId();
+        startTime = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            cardIdGenerator.parse(ids[i & 511], decoded);
+            checksum -= decoded.get(CardIdGenerator.SEQUENCE_FIELD);
+        }
+        long maskSpends = System.nanoTime() - startTime;
+        Assert.assertEquals(0L, checksum);
+        System.out.println("Per parse nanos, one string field " + legacySpends / total + ", validate and decode "
+                + maskSpends / total);
+    }
+
+    /**
+     * 早期版本按二进制字符串截取字段
+     *
+     * @param id     卡号
+     * @param offset 字段左移bit数
+     * @param width  字段bit位数，-1表示最高位字段
+     * @return 字段值
+     */
+    private long legacyField(long id, int offset, int width) {
+        String bitString = Long.toBinaryString(id);
+        int bitLength = bitString.length();
+        int begin = width < 0 ? 0 : bitLength - offset - width;
+        return Long.parseLong(bitString.substring(begin, bitLength - offset), 2);
+    }
+
+    @Test
+    public void hybridClock() {
+        //距离下一秒还有10毫秒
+        ManualTimeSource timeSource = new ManualTimeSource((System.currentTimeMillis() / 1000 + 1) * 1000 - 10);
+        CardIdGenerator idGenerator = new CardIdGenerator();
+        idGenerator.setTimeSource(timeSource);
+        HybridLogicalClock hybridClock = new HybridLogicalClock(20);
+        idGenerator.setHybridClock(hybridClock);
+
+        //512个序号用尽后借用下一秒，无需等待
+        long lastId = 0L;
+        for (int i = 0; i < 600; i++) {
+            long id = idGenerator.generate();
+            Assert.assertTrue(idGenerator.validate(id));
+            Assert.assertTrue(id > lastId);
+            lastId = id;
+        }
+        //借用下一秒1次，之后87个ID都在借用的逻辑时间上生成
+        Assert.assertEquals(88L, hybridClock.getBorrowCount());
+
+        //时钟再回拨5毫秒，逻辑时间领先15毫秒，仍在漂移范围内
+        timeSource.advance(-5);
+        long id = idGenerator.generate();
+        Assert.assertTrue(idGenerator.validate(id));
+        Assert.assertEquals(89L, hybridClock.getBorrowCount());
+        Assert.assertEquals((long) idGenerator.parse(lastId)[1], (long) idGenerator.parse(id)[1]);
+
+        //逻辑时间领先25毫秒，超过漂移范围
+        timeSource.advance(-10);
+        try {
+            idGenerator.generate();
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void clockBackwards() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        CardIdGenerator idGenerator = new CardIdGenerator();
+        idGenerator.setTimeSource(timeSource);
+        idGenerator.generate();
+        timeSource.advance(-1000);
+        idGenerator.generate();
+    }
+
+    @Test
+    public void waitStrategy() {
+        CardIdGenerator idGenerator = new CardIdGenerator();
+        ParkingWaitStrategy strategy = new ParkingWaitStrategy();
+        idGenerator.setWaitStrategy(strategy);
+
+        //每秒512个序号，1100个ID至少等待两次下一秒
+        for (int i = 0; i < 1100; i++) {
+            Assert.assertTrue(idGenerator.validate(idGenerator.generate()));
+        }
+        Assert.assertTrue(strategy.getWaitCount() >= 2);
+        Assert.assertTrue(strategy.getParkCount() >= strategy.getWaitCount());
+        Assert.assertTrue(strategy.getMaxWaitNanos() <= 1100000000L);
+        System.out.println(strategy);
+    }
+
+    @Test
+    public void checkpoint() throws IOException {
+        Path path = Files.createTempFile("card-id-generator", ".checkpoint");
+        Files.delete(path);
+        ManualTimeSource timeSource = new ManualTimeSource();
+        try {
+            try (StampCheckpoint checkpoint = new StampCheckpoint(path, 2)) {
+                CardIdGenerator idGenerator = new CardIdGenerator();
+                idGenerator.setTimeSource(timeSource);
+                idGenerator.setCheckpoint(checkpoint, false);
+                idGenerator.generate();
+                Assert.assertEquals(timeSource.currentTimeMillis() / 1000 + 2, checkpoint.getReservedStamp());
+            }
+
+            //重启后时钟没有超过高水位，拒绝生成卡号，时钟超过高水位后恢复
+            try (StampCheckpoint checkpoint = new StampCheckpoint(path, 2)) {
+                CardIdGenerator idGenerator = new CardIdGenerator();
+                idGenerator.setTimeSource(timeSource);
+                idGenerator.setCheckpoint(checkpoint, false);
+                try {
+                    idGenerator.generate();
+                    Assert.fail();
+                } catch (IllegalArgumentException ignored) {
+                }
+
+                timeSource.advance(3000);
+                Assert.assertTrue(idGenerator.validate(idGenerator.generate()));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
     @Test
     public void performance() {
         long num = 100;
@@ -0,0 +1,116 @@
+package com.jinpei.id.generator;
+
+import com.jinpei.id.common.time.ManualTimeSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 卡号库存单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see CardIdInventory
+ */
+public class CardIdInventoryTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacity() {
+        new CardIdInventory(new CardIdGenerator()::generate, 1000, 1000L);
+    }
+
+    @Test
+    public void burst() throws InterruptedException {
+        CardIdGenerator cardIdGenerator = new CardIdGenerator();
+        try (CardIdInventory inventory = new CardIdInventory(cardIdGenerator::generate, 1024, 3600000L)) {
+            inventory.generate();
+            waitFilled(inventory, 1024);
+            Assert.assertEquals(1D, inventory.getFillRatio(), 0D);
+
+            //库存填满后，一次突发领取超过每秒512个的上限全部来自库存
+            long missCount = inventory.getMissCount();
+            Set<Long> ids = new HashSet<>();
+            for (int i = 0; i < 1024; i++) {
+                long id = inventory.generate();
+                Assert.assertTrue(cardIdGenerator.validate(id));
+                ids.add(id);
+            }
+            Assert.assertEquals(1024, ids.size());
+            Assert.assertEquals(missCount, inventory.getMissCount());
+            Assert.assertTrue(inventory.getHitCount() >= 1024);
+        }
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        ShortCardIdGenerator cardIdGenerator = new ShortCardIdGenerator();
+        AtomicInteger calls = new AtomicInteger();
+        ManualTimeSource timeSource = new ManualTimeSource();
+        try (CardIdInventory inventory = new CardIdInventory(() -> {
+            calls.incrementAndGet();
+            return cardIdGenerator.generate();
+        }, 64, 60000L)) {
+            inventory.setTimeSource(timeSource);
+            inventory.generate();
+            //第一次领取时库存为空，后台线程在同步生成的那一秒内暂停填充
+            timeSource.advance(1000L);
+            waitFilled(inventory, 64);
+            Assert.assertEquals(65, calls.get());
+
+            //超过最大存放时间的卡号全部丢弃，没有请求时不再补充，不消耗生成器的序号
+            timeSource.advance(60001L);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (inventory.getExpiredCount() < 64 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(64, inventory.getExpiredCount());
+            for (int i = 0; i < 10; i++) {
+                timeSource.advance(60001L);
+                Thread.sleep(20);
+            }
+            Assert.assertEquals(0, inventory.getAvailable());
+            Assert.assertEquals(65, calls.get());
+
+            //有请求之后按领取的数量补充
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(cardIdGenerator.validate(inventory.generate()));
+            }
+            timeSource.advance(1000L);
+            waitFilled(inventory, 3);
+            Thread.sleep(50);
+            Assert.assertEquals(3, inventory.getAvailable());
+            Assert.assertEquals(71, calls.get());
+            Assert.assertEquals(64, inventory.getExpiredCount());
+        }
+    }
+
+    @Test
+    public void generatorFailure() throws InterruptedException {
+        //后台线程调用生成器时抛出非预期的异常，记录日志后继续填充
+        AtomicInteger calls = new AtomicInteger();
+        LongSupplier generator = () -> {
+            int call = calls.incrementAndGet();
+            if (call == 2 || call == 3) {
+                throw new IllegalStateException("Generator failure " + call);
+            }
+            return call;
+        };
+        try (CardIdInventory inventory = new CardIdInventory(generator, 64, 3600000L)) {
+            Assert.assertEquals(1L, inventory.generate());
+            waitFilled(inventory, 64);
+            Assert.assertEquals(4L, inventory.generate());
+        }
+    }
+
+    private void waitFilled(CardIdInventory inventory, int capacity) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (inventory.getAvailable() < capacity && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(capacity, inventory.getAvailable());
+    }
+}
@@ -0,0 +1,147 @@
+package com.jinpei.id.generator;
+
+import com.jinpei.id.common.random.ChaCha20EntropySource;
+import com.jinpei.id.common.time.ManualTimeSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 17位紧凑短UUID生成器单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see CompactShortUuidGenerator
+ */
+public class CompactShortUuidGeneratorTest {
+
+    private final CompactShortUuidGenerator generator = new CompactShortUuidGenerator();
+
+    @Test
+    public void generate() {
+        System.out.println(generator.generate());
+        Set<String> uuids = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            String uuid = generator.generate();
+            Assert.assertEquals(17, uuid.length());
+            uuids.add(uuid);
+        }
+        Assert.assertEquals(100000, uuids.size());
+    }
+
+    @Test
+    public void encode() {
+        long[][] values = {{0L, 0L}, {0xFFFFFFFFL, -1L}, {0L, 1L}, {1L, 0L}, {0x80000000L, Long.MIN_VALUE}};
+        for (long[] value : values) {
+            assertCodec(value[0], value[1]);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 100000; i++) {
+            assertCodec(random.nextLong() & 0xFFFFFFFFL, random.nextLong());
+        }
+
+        try {
+            generator.encode(1L << 32, 0L);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void decode() {
+        String[] invalids = {null, "", "222222222222222222", "2222222222222222l", "zzzzzzzzzzzzzzzzz"};
+        for (String invalid : invalids) {
+            try {
+                generator.decode(invalid);
+                Assert.fail(invalid);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void generateOrdered() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        CompactShortUuidGenerator orderedGenerator = new CompactShortUuidGenerator();
+        orderedGenerator.setTimeSource(timeSource);
+        orderedGenerator.setEntropySource(new ChaCha20EntropySource());
+        long timestamp = timeSource.currentTimeMillis();
+
+        String last = "";
+        for (int i = 0; i < 10000; i++) {
+            if (i == 5000) {
+                timeSource.advance(-100);
+            }
+            String uuid = orderedGenerator.generateOrdered();
+            Assert.assertTrue(uuid.compareTo(last) > 0);
+            last = uuid;
+        }
+        Assert.assertTrue(orderedGenerator.parseTimestamp(last) > timestamp);
+
+        String first = generator.generateOrdered();
+        long parsed = generator.parseTimestamp(first);
+        Assert.assertTrue(Math.abs(parsed - System.currentTimeMillis()) < 1000);
+    }
+
+    @Test
+    public void performance() {
+        int total = 1000000;
+        ShortUuidGenerator shortUuidGenerator = new ShortUuidGenerator();
+        UUID uuid = UUID.randomUUID();
+        char[] chars = new char[22];
+        long startTime = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            shortUuidGenerator.encode(uuid.getMostSignificantBits() + i, uuid.getLeastSignificantBits(), chars, 0);
+        }
+        long shortSpends = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            generator.encode(0x12345678L, uuid.getLeastSignificantBits() + i, chars, 0);
+        }
+        long compactSpends = System.nanoTime() - startTime;
+        System.out.println("Per uuid nanos, 22 chars " + shortSpends / total + ", 17 chars " + compactSpends / total);
+    }
+
+    /**
+     * 校验编码结果与BigInteger转换57进制一致，并且可以解码还原
+     *
+     * @param high 高32bit
+     * @param low  低64bit
+     */
+    private void assertCodec(long high, long low) {
+        String compactUuid = generator.encode(high, low);
+        BigInteger value = BigInteger.valueOf(high).shiftLeft(64)
+                .or(new BigInteger(Long.toUnsignedString(low)));
+        Assert.assertEquals(legacyEncode(value), compactUuid);
+        long[] decoded = generator.decode(compactUuid);
+        Assert.assertEquals(high, decoded[0]);
+        Assert.assertEquals(low, decoded[1]);
+    }
+
+    /**
+     * 基于BigInteger的57进制转换，用于验证结果一致
+     *
+     * @param value 96bit值
+     * @return 紧凑短UUID
+     */
+    private String legacyEncode(BigInteger value) {
+        char[] alphabet = "23456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+        BigInteger alphabetSize = BigInteger.valueOf(alphabet.length);
+        StringBuilder compactUuid = new StringBuilder();
+        while (value.compareTo(BigInteger.ZERO) > 0) {
+            BigInteger[] fracAndRemainder = value.divideAndRemainder(alphabetSize);
+            compactUuid.append(alphabet[fracAndRemainder[1].intValue()]);
+            value = fracAndRemainder[0];
+        }
+        while (compactUuid.length() < 17) {
+            compactUuid.append(alphabet[0]);
+        }
+        return compactUuid.reverse().toString();
+    }
+}
@@ -0,0 +1,171 @@
+package com.jinpei.id.generator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+/**
+ * ID文件校验器单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see IdFileValidator
+ */
+public class IdFileValidatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void close() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void cardId() throws IOException {
+        CardIdGenerator cardIdGenerator = new CardIdGenerator();
+        Path file = writeIds(cardIdGenerator::generate, 2000, "\n");
+        IdFileValidator validator = new IdFileValidator(cardIdGenerator::validate, pool, 64);
+
+        Assert.assertEquals(expectedFailures(2000), validator.validate(file));
+    }
+
+    @Test
+    public void shortCardId() throws IOException {
+        ShortCardIdGenerator cardIdGenerator = new ShortCardIdGenerator();
+        Path file = writeIds(cardIdGenerator::generate, 400, "\r\n");
+        IdFileValidator validator = new IdFileValidator(cardIdGenerator::validate, pool, 64);
+
+        Assert.assertEquals(expectedFailures(400), validator.validate(file));
+    }
+
+    @Test
+    public void shopCardId() throws IOException {
+        ShopCardIdGenerator cardIdGenerator = new ShopCardIdGenerator();
+        Path file = writeIds(() -> cardIdGenerator.generate("A00001"), 2000, "\n");
+        IdFileValidator validator = new IdFileValidator(id -> cardIdGenerator.validate("A00001", id), pool, 64);
+        Assert.assertEquals(expectedFailures(2000), validator.validate(file));
+
+        //按店铺编码不同的店铺校验，所有行都失败
+        validator = new IdFileValidator(id -> cardIdGenerator.validate("A00003", id), pool, 64);
+        Assert.assertEquals(2003, validator.validate(file).cardinality());
+    }
+
+    @Test
+    public void orderId() throws IOException {
+        OrderIdGenerator orderIdGenerator = new OrderIdGenerator(1);
+        Path file = writeIds(() -> orderIdGenerator.generate("A00001", 1), 2000, "\n");
+        IdFileValidator validator = new IdFileValidator(id -> orderIdGenerator.validate("A00001", id), pool, 64);
+
+        Assert.assertEquals(expectedFailures(2000), validator.validate(file));
+    }
+
+    @Test
+    public void report() throws IOException {
+        CardIdGenerator cardIdGenerator = new CardIdGenerator();
+        Path file = writeIds(cardIdGenerator::generate, 2000, "\n");
+        Path report = folder.newFile().toPath();
+        IdFileValidator validator = new IdFileValidator(cardIdGenerator::validate, pool, 64);
+
+        Assert.assertEquals(7, validator.validate(file, report));
+        List<String> content = Files.readAllLines(file, StandardCharsets.US_ASCII);
+        List<String> lines = Files.readAllLines(report, StandardCharsets.UTF_8);
+        Assert.assertEquals(7, lines.size());
+        BitSet failures = new BitSet();
+        for (String line : lines) {
+            String[] fields = line.split("\t", -1);
+            int lineNumber = Integer.parseInt(fields[0]);
+            Assert.assertEquals(content.get(lineNumber - 1), fields[1]);
+            failures.set(lineNumber - 1);
+        }
+        Assert.assertEquals(expectedFailures(2000), failures);
+    }
+
+    @Test
+    public void performance() throws IOException {
+        ShopCardIdGenerator cardIdGenerator = new ShopCardIdGenerator();
+        Path file = folder.newFile().toPath();
+        new ShopCardIdFileWriter(cardIdGenerator).write("A00001", 500000, file);
+
+        long startTime = System.currentTimeMillis();
+        int readerFailures = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (!cardIdGenerator.validate("A00001", Long.parseLong(line))) {
+                    readerFailures++;
+                }
+            }
+        }
+        long readerSpends = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        BitSet failures = new IdFileValidator(id -> cardIdGenerator.validate("A00001", id)).validate(file);
+        long spends = System.currentTimeMillis() - startTime;
+        System.out.println("BufferedReader spends " + readerSpends + " ms, mapped spends " + spends
+                + " ms for 500000 card ids");
+        Assert.assertEquals(0, readerFailures);
+        Assert.assertTrue(failures.isEmpty());
+    }
+
+    /**
+     * 写入ID文件，第10、100、300行校验码错误，第200行不是数字，最后依次是超出long范围的行、空行和非数字的行
+     *
+     * @param generator ID生成器
+     * @param num       ID数量，不少于400
+     * @param separator 行分隔符
+     * @return 文件路径
+     * @throws IOException 写文件失败
+     */
+    private Path writeIds(LongSupplier generator, int num, String separator) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < num; i++) {
+            long id = generator.getAsLong();
+            if (i == 10 || i == 100 || i == 300) {
+                id ^= 1;
+            }
+            sb.append(id);
+            if (i == 200) {
+                sb.append('X');
+            }
+            sb.append(separator);
+        }
+        sb.append("99999999999999999999").append(separator);
+        sb.append(separator);
+        sb.append("abc").append(separator);
+
+        Path file = folder.newFile().toPath();
+        Files.write(file, sb.toString().getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    /**
+     * 与{@link #writeIds}对应的失败行号
+     *
+     * @param num ID数量
+     * @return 失败行号
+     */
+    private BitSet expectedFailures(int num) {
+        BitSet failures = new BitSet();
+        failures.set(10);
+        failures.set(100);
+        failures.set(200);
+        failures.set(300);
+        failures.set(num, num + 3);
+        return failures;
+    }
+}
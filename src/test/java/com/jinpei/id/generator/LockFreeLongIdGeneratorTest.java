@@ -0,0 +1,112 @@
+package com.jinpei.id.generator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 无锁Long类型ID生成器单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-16
+ * @see LockFreeLongIdGenerator
+ */
+public class LockFreeLongIdGeneratorTest {
+
+    private final LockFreeLongIdGenerator generator = new LockFreeLongIdGenerator(1L);
+
+    @Test
+    public void generateId() {
+        Long id = generator.generate();
+        Assert.assertEquals(19, String.valueOf(id).length());
+    }
+
+    @Test
+    public void parse() {
+        long startTime = System.currentTimeMillis();
+        Long id = generator.generate();
+        Long[] results = generator.parse(id);
+        Assert.assertTrue(results[0] >= startTime && results[0] <= System.currentTimeMillis());
+        Assert.assertEquals(1L, (long) results[1]);
+        Assert.assertTrue(results[2] < 4096);
+    }
+
+    @Test
+    public void unique() throws InterruptedException {
+        int threadNum = 8;
+        int perThread = 50000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        run(generator, threadNum, perThread, ids);
+        Assert.assertEquals(threadNum * perThread, ids.size());
+    }
+
+    @Test
+    public void generateBatch() throws InterruptedException {
+        int threadNum = 4;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch endLatch = new CountDownLatch(threadNum);
+        for (int i = 0; i < threadNum; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < 20; j++) {
+                    for (long id : generator.generate(1500)) {
+                        ids.add(id);
+                    }
+                    ids.add(generator.generate());
+                }
+                endLatch.countDown();
+            }).start();
+        }
+        endLatch.await();
+        Assert.assertEquals(threadNum * 20 * 1501, ids.size());
+    }
+
+    @Test
+    public void performance() throws InterruptedException {
+        int total = 400000;
+        for (int threadNum = 1; threadNum <= 32; threadNum <<= 1) {
+            long syncTps = run(new LongIdGenerator(1L), threadNum, total / threadNum, null);
+            long lockFreeTps = run(new LockFreeLongIdGenerator(1L), threadNum, total / threadNum, null);
+            System.out.println("threads " + threadNum + ", synchronized tps " + syncTps + ", lock-free tps " + lockFreeTps);
+        }
+    }
+
+    /**
+     * 多线程生成ID
+     *
+     * @param idGenerator ID生成器
+     * @param threadNum   线程数
+     * @param perThread   每个线程生成的ID数
+     * @param ids         收集生成的ID，为null时不收集
+     * @return tps
+     */
+    private long run(LongIdGenerator idGenerator, int threadNum, int perThread, Set<Long> ids)
+            throws InterruptedException {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(threadNum);
+        for (int i = 0; i < threadNum; i++) {
+            new Thread(() -> {
+                try {
+                    startLatch.await();
+                    for (int j = 0; j < perThread; j++) {
+                        Long id = idGenerator.generate();
+                        if (null != ids) {
+                            ids.add(id);
+                        }
+                    }
+                } catch (InterruptedException ignored) {
+                } finally {
+                    endLatch.countDown();
+                }
+            }).start();
+        }
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        endLatch.await();
+        long spends = Math.max(1L, System.nanoTime() - startTime);
+        return (long) threadNum * perThread * 1000000000L / spends;
+    }
+}
@@ -1,12 +1,29 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.time.ManualTimeSource;
+import com.jinpei.id.common.time.TickingTimeSource;
+import com.jinpei.id.common.wait.AbstractWaitStrategy;
+import com.jinpei.id.common.wait.BlockingWaitStrategy;
+import com.jinpei.id.common.wait.BusySpinWaitStrategy;
+import com.jinpei.id.common.wait.ParkingWaitStrategy;
+import com.jinpei.id.common.wait.SpinYieldWaitStrategy;
+import com.jinpei.id.generator.base.HybridLogicalClock;
+import com.jinpei.id.generator.base.StampCheckpoint;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
 
 /**
  * Long 类型ID生成器单元测试
@@ -37,4 +54,285 @@ public class LongIdGeneratorTest {
         System.out.println("Machine id: " + results[1]);
         System.out.println("Sequence: " + results[2]);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parsePrimitive() {
+        LongIdParts parts = new LongIdParts();
+        for (long id : generator.generate(5000)) {
+            Assert.assertTrue(generator.parse(id, parts));
+            Long[] results = generator.parse(id);
+            Assert.assertEquals((long) results[0], parts.getTimestamp());
+            Assert.assertEquals(1L, parts.getMachineId());
+            Assert.assertEquals((long) results[2], parts.getSequence());
+            Assert.assertEquals(id & 4095, parts.getSequence());
+        }
+
+        long id = generator.nextId();
+        Assert.assertTrue(generator.parse(id, parts));
+        Assert.assertTrue(parts.getTimestamp() <= System.currentTimeMillis());
+        Assert.assertFalse(generator.parse(1L, parts));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void clockBackwards() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        LongIdGenerator idGenerator = new LongIdGenerator(1L);
+        idGenerator.setTimeSource(timeSource);
+        idGenerator.nextId();
+        timeSource.advance(-5);
+        idGenerator.nextId();
+    }
+
+    @Test
+    public void hybridClock() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        LongIdGenerator idGenerator = new LongIdGenerator(1L);
+        idGenerator.setTimeSource(timeSource);
+        HybridLogicalClock hybridClock = new HybridLogicalClock(10);
+        idGenerator.setHybridClock(hybridClock);
+        LongIdParts parts = new LongIdParts();
+        long lastId = idGenerator.nextId();
+        long issuedStamp = timeSource.currentTimeMillis();
+
+        //时钟回拨5毫秒，继续使用上一次的时间戳
+        timeSource.advance(-5);
+        long id = idGenerator.nextId();
+        Assert.assertTrue(id > lastId);
+        idGenerator.parse(id, parts);
+        Assert.assertEquals(issuedStamp, parts.getTimestamp());
+        Assert.assertEquals(1L, hybridClock.getBorrowCount());
+
+        //序号用尽后逻辑时间前进，不等待物理时间
+        long[] ids = idGenerator.generate(8192);
+        Assert.assertTrue(ids[0] > id);
+        idGenerator.parse(ids[ids.length - 1], parts);
+        Assert.assertTrue(parts.getTimestamp() > issuedStamp);
+        Assert.assertTrue(parts.getTimestamp() - timeSource.currentTimeMillis() <= 10);
+
+        //物理时间追上后回到物理时间
+        timeSource.advance(20);
+        id = idGenerator.nextId();
+        idGenerator.parse(id, parts);
+        Assert.assertEquals(timeSource.currentTimeMillis(), parts.getTimestamp());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hybridClockDriftExceeded() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        LongIdGenerator idGenerator = new LockFreeLongIdGenerator(1L);
+        idGenerator.setTimeSource(timeSource);
+        idGenerator.setHybridClock(new HybridLogicalClock(10));
+        idGenerator.nextId();
+        timeSource.advance(-11);
+        idGenerator.nextId();
+    }
+
+    @Test
+    public void overrideCurrentMill() {
+        //子类覆盖getCurrentMill后，序号用尽时的等待也使用覆盖后的时间
+        AtomicLong mill = new AtomicLong(System.currentTimeMillis() - 3600000L);
+        LongIdGenerator idGenerator = new LongIdGenerator(1L) {
+            @Override
+            protected long getCurrentMill() {
+                return mill.get();
+            }
+        };
+        long stamp = mill.get();
+        Thread ticker = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            mill.incrementAndGet();
+        });
+        ticker.setDaemon(true);
+        ticker.start();
+
+        long[] ids = idGenerator.generate(4096);
+        Assert.assertEquals(stamp, (long) idGenerator.parse(ids[0])[0]);
+        Assert.assertEquals(stamp + 1, (long) idGenerator.parse(ids[ids.length - 1])[0]);
+    }
+
+    @Test
+    public void tickingTimeSource() {
+        try (TickingTimeSource timeSource = new TickingTimeSource()) {
+            LongIdGenerator idGenerator = new LongIdGenerator(1L);
+            idGenerator.setTimeSource(timeSource);
+            long[] ids = idGenerator.generate(10000);
+            LongIdParts parts = new LongIdParts();
+            for (int i = 1; i < ids.length; i++) {
+                Assert.assertTrue(ids[i] > ids[i - 1]);
+            }
+            idGenerator.parse(ids[ids.length - 1], parts);
+            Assert.assertTrue(Math.abs(parts.getTimestamp() - System.currentTimeMillis()) < 100);
+        }
+    }
+
+    @Test
+    public void generateBatch() {
+        long[] ids = generator.generate(10000);
+        Assert.assertEquals(10000, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            Assert.assertEquals(19, String.valueOf(ids[i]).length());
+            if (i > 0) {
+                Assert.assertTrue(ids[i] > ids[i - 1]);
+            }
+        }
+
+        long[] buffer = new long[8];
+        generator.generate(buffer, 2, 4);
+        Assert.assertEquals(0L, buffer[1]);
+        Assert.assertTrue(buffer[2] > ids[ids.length - 1]);
+        Assert.assertTrue(buffer[5] > buffer[4]);
+        Assert.assertEquals(0L, buffer[6]);
+    }
+
+    @Test
+    public void batchPerformance() {
+        int batchSize = 2000;
+        int batchNum = 500;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < batchNum; i++) {
+            for (int j = 0; j < batchSize; j++) {
+                generator.generate();
+            }
+        }
+        long singleSpends = System.nanoTime() - startTime;
+
+        long[] ids = new long[batchSize];
+        startTime = System.nanoTime();
+        for (int i = 0; i < batchNum; i++) {
+            generator.generate(ids, 0, batchSize);
+        }
+        long batchSpends = System.nanoTime() - startTime;
+        System.out.println("Per id nanos, single " + singleSpends / (batchSize * batchNum)
+                + ", batch " + batchSpends / (batchSize * batchNum));
+    }
+
+    @Test
+    public void waitStrategy() {
+        AbstractWaitStrategy[] strategies = {new BusySpinWaitStrategy(), new SpinYieldWaitStrategy(),
+                new ParkingWaitStrategy(), new BlockingWaitStrategy(1)};
+        for (AbstractWaitStrategy strategy : strategies) {
+            LongIdGenerator idGenerator = new LongIdGenerator(1L);
+            idGenerator.setWaitStrategy(strategy);
+            long[] ids = idGenerator.generate(100000);
+            for (int i = 1; i < ids.length; i++) {
+                Assert.assertTrue(ids[i] > ids[i - 1]);
+            }
+
+            //10万个ID至少需要跨越20毫秒
+            Assert.assertTrue(strategy.getWaitCount() >= 20);
+            System.out.println(strategy);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullWaitStrategy() {
+        generator.setWaitStrategy(null);
+    }
+
+    @Test
+    public void tryGenerate() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        LongIdGenerator idGenerator = new LongIdGenerator(1L);
+        idGenerator.setTimeSource(timeSource);
+
+        //当前毫秒序号用尽后不等待，直接返回0
+        long[] ids = new long[5000];
+        int count = idGenerator.tryGenerate(ids, 0, ids.length);
+        Assert.assertTrue(count > 4000 && count <= 4096);
+        Assert.assertEquals(0, idGenerator.tryGenerate(ids, count, ids.length - count));
+
+        timeSource.advance(1);
+        Assert.assertEquals(ids.length - count, idGenerator.tryGenerate(ids, count, ids.length - count));
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue(ids[i] > ids[i - 1]);
+        }
+    }
+
+    @Test
+    public void stream() {
+        long[] ids = generator.stream(100).limit(10000).toArray();
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue(ids[i] > ids[i - 1]);
+        }
+        Assert.assertEquals(10000, generator.stream(64).limit(10000).boxed().collect(Collectors.toSet()).size());
+    }
+
+    @Test
+    public void checkpoint() throws IOException {
+        Path path = Files.createTempFile("id-generator", ".checkpoint");
+        Files.delete(path);
+        try {
+            long startTime = System.currentTimeMillis();
+            try (StampCheckpoint checkpoint = new StampCheckpoint(path, 50)) {
+                Assert.assertEquals(-1L, checkpoint.getRecordedStamp());
+                LongIdGenerator idGenerator = new LongIdGenerator(1L);
+                idGenerator.setCheckpoint(checkpoint, false);
+                idGenerator.generate(10000);
+                Assert.assertTrue(checkpoint.getReservedStamp() >= startTime + 50);
+            }
+
+            //重启后时钟落后于高水位，拒绝生成ID
+            try (StampCheckpoint checkpoint = new StampCheckpoint(path, 50)) {
+                long recordedStamp = checkpoint.getRecordedStamp();
+                LongIdGenerator idGenerator = new LongIdGenerator(1L);
+                idGenerator.setTimeSource(new ManualTimeSource(startTime));
+                idGenerator.setCheckpoint(checkpoint, false);
+                try {
+                    idGenerator.nextId();
+                    Assert.fail();
+                } catch (IllegalArgumentException ignored) {
+                }
+
+                //等待时间超过高水位
+                LongIdGenerator waitGenerator = new LongIdGenerator(1L);
+                waitGenerator.setCheckpoint(checkpoint, true);
+                LongIdParts parts = new LongIdParts();
+                waitGenerator.parse(waitGenerator.nextId(), parts);
+                Assert.assertTrue(parts.getTimestamp() > recordedStamp);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void customLayout() {
+        LongIdGenerator idGenerator = new LongIdGenerator(63L, 6, 16);
+        long[] ids = idGenerator.generate(100000);
+        LongIdParts parts = new LongIdParts();
+        for (int i = 0; i < ids.length; i++) {
+            Assert.assertEquals(19, String.valueOf(ids[i]).length());
+            Assert.assertTrue(idGenerator.parse(ids[i], parts));
+            Assert.assertEquals(63L, parts.getMachineId());
+            Assert.assertTrue(parts.getSequence() < 65536);
+            Assert.assertTrue(Math.abs(parts.getTimestamp() - System.currentTimeMillis()) < 1000);
+            if (i > 0) {
+                Assert.assertTrue(ids[i] > ids[i - 1]);
+            }
+        }
+
+        //每毫秒65536个序号，10万个ID最多跨越3毫秒
+        Long[] first = idGenerator.parse(ids[0]);
+        Long[] last = idGenerator.parse(ids[ids.length - 1]);
+        Assert.assertTrue(last[0] - first[0] <= 2);
+        Assert.assertEquals(63L, (long) idGenerator.parse(idGenerator.nextId())[1]);
+    }
+
+    @Test
+    public void invalidLayout() {
+        int[][] layouts = {{10, 11}, {0, 22}, {19, 3}, {6, 17}};
+        for (int[] layout : layouts) {
+            try {
+                new LongIdGenerator(1L, layout[0], layout[1]);
+                Assert.fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        try {
+            new LongIdGenerator(64L, 6, 16);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
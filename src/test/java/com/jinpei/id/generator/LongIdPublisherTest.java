@@ -0,0 +1,149 @@
+package com.jinpei.id.generator;
+
+import com.jinpei.id.generator.base.IdSubscriber;
+import com.jinpei.id.generator.base.IdSubscription;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 带背压的ID发布者单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see LongIdPublisher
+ */
+public class LongIdPublisherTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void backPressure() throws InterruptedException {
+        LongIdPublisher publisher = new LongIdPublisher(new LongIdGenerator(1L), executor, 512);
+        int total = 100000;
+        int batch = 1000;
+        Set<Long> ids = new HashSet<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<String> failure = new AtomicReference<>();
+        publisher.subscribe(new IdSubscriber() {
+            private IdSubscription subscription;
+
+            private long outstanding;
+
+            @Override
+            public void onSubscribe(IdSubscription subscription) {
+                this.subscription = subscription;
+                outstanding = batch;
+                subscription.request(batch);
+            }
+
+            @Override
+            public void onNext(long[] chunk, int offset, int length) {
+                if (length > 512 || length > outstanding) {
+                    failure.set("Chunk " + length + " exceeds demand " + outstanding);
+                }
+                outstanding -= length;
+                for (int i = offset; i < offset + length; i++) {
+                    ids.add(chunk[i]);
+                }
+
+                if (ids.size() >= total) {
+                    subscription.cancel();
+                    latch.countDown();
+                } else if (outstanding == 0) {
+                    outstanding = batch;
+                    subscription.request(batch);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failure.set(throwable.getMessage());
+                latch.countDown();
+            }
+        });
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(total, ids.size());
+    }
+
+    @Test
+    public void unbounded() throws InterruptedException {
+        LongIdPublisher publisher = new LongIdPublisher(new LockFreeLongIdGenerator(1L), executor, 4096);
+        int total = 50000;
+        Set<Long> ids = new HashSet<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        publisher.subscribe(new IdSubscriber() {
+            private IdSubscription subscription;
+
+            @Override
+            public void onSubscribe(IdSubscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(long[] chunk, int offset, int length) {
+                for (int i = offset; i < offset + length && ids.size() < total; i++) {
+                    ids.add(chunk[i]);
+                }
+                if (ids.size() >= total) {
+                    subscription.cancel();
+                    latch.countDown();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                latch.countDown();
+            }
+        });
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(total, ids.size());
+    }
+
+    @Test
+    public void invalidRequest() throws InterruptedException {
+        LongIdPublisher publisher = new LongIdPublisher(new LongIdGenerator(1L), executor, 16);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AtomicReference<Thread> errorThread = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        publisher.subscribe(new IdSubscriber() {
+            @Override
+            public void onSubscribe(IdSubscription subscription) {
+                subscription.request(0);
+            }
+
+            @Override
+            public void onNext(long[] chunk, int offset, int length) {
+                Assert.fail();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+                errorThread.set(Thread.currentThread());
+                latch.countDown();
+            }
+        });
+        //错误由推送线程发出，不在调用request的线程上回调
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(error.get() instanceof IllegalArgumentException);
+        Assert.assertNotSame(Thread.currentThread(), errorThread.get());
+    }
+}
@@ -1,5 +1,7 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.time.ManualTimeSource;
+import com.jinpei.id.generator.base.DecodedId;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -7,7 +9,9 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
 
 /**
  * @author Mingo.Liu
@@ -47,6 +51,76 @@ public class OrderIdGeneratorTest {
         System.out.println("Sequence: " + results[3]);
     }
 
+    @Test
+    public void partitionedSequence() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        OrderIdGenerator generator = new OrderIdGenerator(5);
+        generator.setTimeSource(timeSource);
+
+        //每种订单类型各自拥有1024个序号，同一秒内不同类型生成的订单ID互不占用序号
+        String shopId = "1234567";
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            for (int type = 0; type < 16; type++) {
+                ids.add(generator.generate(shopId, type));
+            }
+        }
+        Assert.assertEquals(16 * 1000, ids.size());
+    }
+
+    @Test
+    public void shard() {
+        OrderIdGenerator generator = new OrderIdGenerator(5, OrderIdGenerator.DEFAULT_SHARD_BITS);
+        Set<Long> ids = new HashSet<>();
+        Set<Integer> shards = new HashSet<>();
+        DecodedId decoded = new DecodedId();
+        for (int i = 0; i < 100; i++) {
+            String shopId = Integer.toString(100000 + i * 7919, 36);
+            int shard = generator.getShard(shopId);
+            shards.add(shard);
+            for (int j = 0; j < 3; j++) {
+                long id = generator.generate(shopId, type);
+                Assert.assertEquals(16, String.valueOf(id).length());
+                Assert.assertEquals(shard, OrderIdGenerator.shardOf(id, OrderIdGenerator.DEFAULT_SHARD_BITS));
+                Assert.assertTrue(generator.validate(shopId, id));
+                Assert.assertFalse(generator.validate(shopId, id ^ 1));
+                Assert.assertTrue(generator.parse(shopId, id, decoded));
+                Assert.assertEquals(shard, decoded.get(OrderIdGenerator.SHARD_FIELD));
+                Assert.assertEquals(type, decoded.get(OrderIdGenerator.TYPE_FIELD));
+                ids.add(id);
+            }
+        }
+        Assert.assertEquals(300, ids.size());
+        Assert.assertEquals(16, shards.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidShardBits() {
+        new OrderIdGenerator(5, OrderIdGenerator.MAX_SHARD_BITS + 1);
+    }
+
+    @Test
+    public void parseDecoded() {
+        String shopId = "1234567";
+        long id = idGenerator.generate(shopId, type);
+        DecodedId decoded = new DecodedId();
+        Assert.assertTrue(idGenerator.parse(shopId, id, decoded));
+        Long[] results = idGenerator.parse(shopId, id);
+        Assert.assertEquals((long) results[0], decoded.getTimestamp());
+        Assert.assertEquals((long) results[1], decoded.get(OrderIdGenerator.MACHINE_FIELD));
+        Assert.assertEquals(type, decoded.get(OrderIdGenerator.TYPE_FIELD));
+        Assert.assertEquals((long) results[3], decoded.get(OrderIdGenerator.SEQUENCE_FIELD));
+        //校验码只有6bit，其他店铺有1/64的概率碰巧通过，换多个店铺检查
+        int passed = 0;
+        for (int i = 0; i < 8; i++) {
+            String otherShopId = "765432" + i;
+            boolean parsed = idGenerator.parse(otherShopId, id, decoded);
+            Assert.assertEquals(idGenerator.validate(otherShopId, id), parsed);
+            passed += parsed ? 1 : 0;
+        }
+        Assert.assertTrue(passed < 8);
+    }
+
     @Test
     public void performance() {
         String shopId = "TTT600001";
@@ -0,0 +1,140 @@
+package com.jinpei.id.generator;
+
+import com.jinpei.id.common.time.ManualTimeSource;
+import com.jinpei.id.generator.base.ShopKey;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 批量发卡单元测试
+ *
+ * @author Mingo.Liu
+ * @date 2026-10-17
+ * @see ShopCardIdFileWriter
+ */
+public class ShopCardIdFileWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ShopCardIdGenerator cardIdGenerator = new ShopCardIdGenerator();
+
+    private final ShopCardIdFileWriter writer = new ShopCardIdFileWriter(cardIdGenerator);
+
+    @Test
+    public void write() throws IOException {
+        String shopId = "A00001";
+        Path file = folder.newFile().toPath();
+        long first = cardIdGenerator.generate(shopId);
+        writer.write(shopId, 3000, file);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.US_ASCII);
+        Assert.assertEquals(3000, lines.size());
+        Assert.assertEquals(3000 * 17, Files.size(file));
+        Set<Long> ids = new HashSet<>();
+        long previous = first;
+        for (String line : lines) {
+            long id = Long.parseLong(line);
+            Assert.assertTrue(cardIdGenerator.validate(shopId, id));
+            Assert.assertTrue(id > previous);
+            previous = id;
+            ids.add(id);
+        }
+        Assert.assertEquals(3000, ids.size());
+
+        //批量发卡之后实时生成仍然使用当前时间，与批量发放的卡号不重复
+        for (int i = 0; i < 1000; i++) {
+            long id = cardIdGenerator.generate(shopId);
+            Assert.assertTrue(cardIdGenerator.parse(id)[0] <= System.currentTimeMillis());
+            Assert.assertTrue(ids.add(id));
+        }
+    }
+
+    @Test
+    public void reserveKeepsLiveGeneration() {
+        ManualTimeSource timeSource = new ManualTimeSource(System.currentTimeMillis() / 1000 * 1000);
+        ShopCardIdGenerator generator = new ShopCardIdGenerator();
+        generator.setTimeSource(timeSource);
+        ShopKey shopKey = ShopKey.of("A00001");
+        long now = timeSource.currentTimeMillis() / 1000;
+        long liveId = generator.generate(shopKey);
+
+        //预留到领先上限，同一分区的实时生成不受影响，不会拿到时间领先的卡号
+        long firstStamp = generator.reserveSeconds(shopKey, ShopCardIdGenerator.MAX_RESERVE_AHEAD_SECONDS);
+        Assert.assertEquals(now, firstStamp);
+        Assert.assertEquals(now + ShopCardIdGenerator.MAX_RESERVE_AHEAD_SECONDS, generator.reserveSeconds(shopKey, 1));
+
+        //预留的秒内实时生成只使用低半部分的序号，用完后等待下一秒
+        Set<Long> ids = new HashSet<>();
+        ids.add(liveId);
+        long half = generator.getReservedSequenceStart();
+        for (int i = 1; i < half; i++) {
+            long id = generator.generate(shopKey);
+            Assert.assertEquals(now * 1000, (long) generator.parse(id)[0]);
+            Assert.assertTrue(generator.parse(id)[2] < half);
+            Assert.assertTrue(ids.add(id));
+        }
+        timeSource.advance(1000L);
+        long id = generator.generate(shopKey);
+        Assert.assertEquals((now + 1) * 1000, (long) generator.parse(id)[0]);
+        Assert.assertTrue(ids.add(id));
+
+        //批量发卡使用预留秒的高半部分序号，与实时生成的卡号不重复
+        for (long sequence = half; sequence <= generator.getMaxSequence(); sequence++) {
+            Assert.assertTrue(ids.add(generator.compose(shopKey, now, sequence)));
+            Assert.assertTrue(ids.add(generator.compose(shopKey, now + 1, sequence)));
+        }
+    }
+
+    @Test
+    public void reserveAfterLiveUpperHalf() {
+        ManualTimeSource timeSource = new ManualTimeSource(System.currentTimeMillis() / 1000 * 1000);
+        ShopCardIdGenerator generator = new ShopCardIdGenerator();
+        generator.setTimeSource(timeSource);
+        ShopKey shopKey = ShopKey.of("A00001");
+        long now = timeSource.currentTimeMillis() / 1000;
+
+        //当前秒的实时生成已经用到高半部分的序号，预留从下一秒开始
+        for (long i = 0; i <= generator.getReservedSequenceStart(); i++) {
+            generator.generate(shopKey);
+        }
+        Assert.assertEquals(now + 1, generator.reserveSeconds(shopKey, 2));
+        Assert.assertEquals(now + 3, generator.reserveSeconds(shopKey, 1));
+    }
+
+    @Test
+    public void invalidCountKeepsFile() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, "existing\n".getBytes(StandardCharsets.US_ASCII));
+        try {
+            writer.write("A00001", 0, file);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("existing\n", new String(Files.readAllBytes(file), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reserveTooFar() {
+        cardIdGenerator.reserveSeconds(ShopKey.of("A00001"), ShopCardIdGenerator.MAX_RESERVE_AHEAD_SECONDS + 1);
+    }
+
+    @Test
+    public void performance() throws IOException {
+        Path file = folder.newFile().toPath();
+        long startTime = System.currentTimeMillis();
+        writer.write("A1234567", 500000, file);
+        System.out.println("Spends " + (System.currentTimeMillis() - startTime) + " ms for 500000 card ids");
+        Assert.assertEquals(500000 * 17, Files.size(file));
+    }
+}
@@ -1,5 +1,7 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.generator.base.ShopCodeCache;
+import com.jinpei.id.generator.base.ShopKey;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -35,6 +37,40 @@ public class ShopCardIdGeneratorTest {
         Assert.assertFalse(cardIdGenerator.validate("A000111", id));
     }
 
+    @Test
+    public void shopKey() {
+        ShopKey shopKey = ShopKey.of("A00001");
+        long id = cardIdGenerator.generate(shopKey);
+        Assert.assertTrue(cardIdGenerator.validate(shopKey, id));
+        Assert.assertTrue(cardIdGenerator.validate("A00001", id));
+        Assert.assertFalse(cardIdGenerator.validate(shopKey, ++id));
+        Assert.assertFalse(cardIdGenerator.validate((ShopKey) null, id));
+        Assert.assertEquals(shopKey.getShopCode(), cardIdGenerator.getShopCodeCache().get("A00001").getShopCode());
+    }
+
+    @Test
+    public void shopCodeCache() {
+        ShopCodeCache cache = new ShopCodeCache(4);
+        ShopCardIdGenerator generator = new ShopCardIdGenerator();
+        generator.setShopCodeCache(cache);
+
+        generator.generate("A00001");
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(generator.validate("A00001", generator.generate("A00001")));
+        }
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(200, cache.getHitCount());
+
+        for (int i = 0; i < 100; i++) {
+            generator.generate("A00001");
+            generator.generate(Integer.toHexString(0xB00000 + i));
+        }
+        Assert.assertEquals(4, cache.size());
+        Assert.assertEquals(97, cache.getEvictionCount());
+        Assert.assertSame(cache.get("A00001"), cache.get("A00001"));
+        Assert.assertEquals(1, cache.getMissCount() - 100);
+    }
+
     @Test
     public void parse() {
         String shopId = "A1234567";
@@ -8,6 +8,11 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 13位数字短卡号生成器单元测试用例
@@ -33,6 +38,36 @@ public class ShortCardIdGeneratorTest {
         Assert.assertFalse(cardIdGenerator.validate(++id));
     }
 
+    @Test
+    public void concurrentGenerate() throws InterruptedException {
+        ShortCardIdGenerator idGenerator = new ShortCardIdGenerator();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threadNum = 4;
+        int num = 100;
+        CountDownLatch latch = new CountDownLatch(threadNum);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < threadNum; i++) {
+            new Thread(() -> {
+                try {
+                    for (int j = 0; j < num; j++) {
+                        long id = idGenerator.generate();
+                        Assert.assertTrue(idGenerator.validate(id));
+                        ids.add(id);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        if (null != failure.get()) {
+            throw new AssertionError(failure.get());
+        }
+        Assert.assertEquals(threadNum * num, ids.size());
+    }
+
     @Test
     public void parse() {
         long id = cardIdGenerator.generate();
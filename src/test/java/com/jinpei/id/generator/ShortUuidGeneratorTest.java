@@ -1,7 +1,21 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.random.ChaCha20EntropySource;
+import com.jinpei.id.common.time.ManualTimeSource;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * 22位的短UUID生成器单元测试
  * @author liuzhaoming
@@ -20,6 +34,274 @@ public class ShortUuidGeneratorTest {
         for (int i = 0; i < total; i++) {
             shortUuidGenerator.generate();
         }
-        System.out.println("tps " + total * 1000 / (System.currentTimeMillis() - startTime));
+        System.out.println("tps " + total * 1000 / Math.max(1L, System.currentTimeMillis() - startTime));
+    }
+
+    @Test
+    public void encode() {
+        UUID[] uuids = {new UUID(0L, 0L), new UUID(-1L, -1L), new UUID(0L, 1L), new UUID(Long.MIN_VALUE, 0L),
+                new UUID(Long.MAX_VALUE, -1L)};
+        for (UUID uuid : uuids) {
+            Assert.assertEquals(legacyEncode(uuid), shortUuidGenerator.encode(uuid));
+        }
+        for (int i = 0; i < 100000; i++) {
+            UUID uuid = UUID.randomUUID();
+            Assert.assertEquals(legacyEncode(uuid), shortUuidGenerator.encode(uuid));
+        }
+    }
+
+    @Test
+    public void decode() {
+        for (int i = 0; i < 100000; i++) {
+            UUID uuid = UUID.randomUUID();
+            Assert.assertEquals(uuid, shortUuidGenerator.decode(shortUuidGenerator.encode(uuid)));
+        }
+        Assert.assertEquals(new UUID(-1L, -1L), shortUuidGenerator.decode(shortUuidGenerator.encode(new UUID(-1L, -1L))));
+
+        String[] invalids = {null, "", "2222222222222222222222A", "222222222222222222222l", "222222222222222222222中",
+                "zzzzzzzzzzzzzzzzzzzzzz"};
+        for (String invalid : invalids) {
+            try {
+                shortUuidGenerator.decode(invalid);
+                Assert.fail(invalid);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void encodeToArray() {
+        char[] chars = new char[30];
+        UUID uuid = UUID.randomUUID();
+        shortUuidGenerator.encode(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), chars, 4);
+        Assert.assertEquals(shortUuidGenerator.encode(uuid), new String(chars, 4, 22));
+        Assert.assertEquals(0, chars[3]);
+        Assert.assertEquals(0, chars[26]);
+    }
+
+    @Test
+    public void performance() {
+        int total = 1000000;
+        UUID[] uuids = new UUID[1000];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.randomUUID();
+        }
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            legacyEncode(uuids[i % uuids.length]);
+        }
+        long legacySpends = System.nanoTime() - startTime;
+
+        char[] chars = new char[22];
+        startTime = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            UUID uuid = uuids[i % uuids.length];
+            shortUuidGenerator.encode(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), chars, 0);
+        }
+        long primitiveSpends = System.nanoTime() - startTime;
+        System.out.println("Per uuid nanos, BigInteger " + legacySpends / total + ", primitive " + primitiveSpends / total);
+    }
+
+    @Test
+    public void entropySource() throws InterruptedException {
+        ShortUuidGenerator generator = new ShortUuidGenerator();
+        generator.setEntropySource(new ChaCha20EntropySource());
+        Set<String> uuids = ConcurrentHashMap.newKeySet();
+        run(generator, 4, 50000, uuids);
+        Assert.assertEquals(200000, uuids.size());
+        for (String shortUuid : uuids) {
+            UUID uuid = generator.decode(shortUuid);
+            Assert.assertEquals(4, uuid.version());
+            Assert.assertEquals(2, uuid.variant());
+        }
+    }
+
+    @Test
+    public void entropyPerformance() throws InterruptedException {
+        int total = 800000;
+        ShortUuidGenerator chachaGenerator = new ShortUuidGenerator();
+        chachaGenerator.setEntropySource(new ChaCha20EntropySource());
+        for (int threadNum = 1; threadNum <= 8; threadNum <<= 1) {
+            long secureTps = run(shortUuidGenerator, threadNum, total / threadNum, null);
+            long chachaTps = run(chachaGenerator, threadNum, total / threadNum, null);
+            System.out.println("threads " + threadNum + ", SecureRandom tps " + secureTps + ", ChaCha20 tps " + chachaTps);
+        }
+    }
+
+    @Test
+    public void generateOrdered() {
+        long startTime = System.currentTimeMillis();
+        String last = "";
+        for (int i = 0; i < 100000; i++) {
+            String shortUuid = shortUuidGenerator.generateOrdered();
+            Assert.assertEquals(22, shortUuid.length());
+            Assert.assertTrue(shortUuid.compareTo(last) > 0);
+            last = shortUuid;
+        }
+
+        long timestamp = shortUuidGenerator.parseTimestamp(last);
+        Assert.assertTrue(timestamp >= startTime && timestamp <= System.currentTimeMillis() + 100);
+        UUID uuid = shortUuidGenerator.decode(last);
+        Assert.assertEquals(7, uuid.version());
+        Assert.assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void generateOrderedClockBackwards() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        ShortUuidGenerator generator = new ShortUuidGenerator();
+        generator.setTimeSource(timeSource);
+        String first = generator.generateOrdered();
+        long timestamp = generator.parseTimestamp(first);
+
+        //同一毫秒内序号用尽后时间戳前进，时钟回拨时仍然单调递增
+        String last = first;
+        for (int i = 0; i < 5000; i++) {
+            if (i == 2500) {
+                timeSource.advance(-100);
+            }
+            String shortUuid = generator.generateOrdered();
+            Assert.assertTrue(shortUuid.compareTo(last) > 0);
+            last = shortUuid;
+        }
+        Assert.assertTrue(generator.parseTimestamp(last) > timestamp);
+
+        try {
+            generator.parseTimestamp(generator.generate());
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void bulkGenerate() {
+        char[] chars = new char[2 + 1000 * 23];
+        Assert.assertEquals(1000 * 23, shortUuidGenerator.generate(chars, 2, 1000, "\n"));
+        assertLines(new String(chars, 2, 1000 * 23), 1000);
+
+        CharBuffer charBuffer = CharBuffer.allocate(1000 * 24);
+        charBuffer.put('#');
+        shortUuidGenerator.generate(charBuffer, 500, "\r\n");
+        Assert.assertEquals(1 + 500 * 24, charBuffer.position());
+        charBuffer.flip();
+        charBuffer.get();
+        assertLines(charBuffer.toString().replace("\r", ""), 500);
+
+        StringBuilder builder = new StringBuilder();
+        shortUuidGenerator.generate(builder, 1000, ",");
+        Assert.assertEquals(1000 * 23, builder.length());
+        assertLines(builder.toString().replace(',', '\n'), 1000);
+
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1000 * 23);
+        shortUuidGenerator.generate(byteBuffer, 1000, "\n");
+        Assert.assertFalse(byteBuffer.hasRemaining());
+        byte[] bytes = new byte[byteBuffer.capacity()];
+        byteBuffer.flip();
+        byteBuffer.get(bytes);
+        assertLines(new String(bytes, StandardCharsets.US_ASCII), 1000);
+
+        try {
+            shortUuidGenerator.generate(new char[100], 0, 5, "\n");
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            shortUuidGenerator.generate(ByteBuffer.allocate(100), 1, "中");
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void bulkGenerateParallel() {
+        ShortUuidGenerator generator = new ShortUuidGenerator();
+        generator.setEntropySource(new ChaCha20EntropySource());
+        int total = 100000;
+        char[] chars = new char[total * 23];
+        long startTime = System.nanoTime();
+        Assert.assertEquals(chars.length, generator.generateParallel(chars, 0, total, "\n", ForkJoinPool.commonPool()));
+        long spends = Math.max(1L, System.nanoTime() - startTime);
+        assertLines(new String(chars), total);
+
+        startTime = System.nanoTime();
+        generator.generate(chars, 0, total, "\n");
+        System.out.println("Bulk tps, parallel " + total * 1000000000L / spends + ", serial "
+                + total * 1000000000L / Math.max(1L, System.nanoTime() - startTime));
+    }
+
+    /**
+     * 校验换行分隔的短UUID都是合法且不重复的v4 UUID
+     *
+     * @param text  文本
+     * @param total 短UUID数量
+     */
+    private void assertLines(String text, int total) {
+        Set<String> uuids = new HashSet<>();
+        for (String line : text.split("\n")) {
+            Assert.assertEquals(22, line.length());
+            Assert.assertEquals(4, shortUuidGenerator.decode(line).version());
+            uuids.add(line);
+        }
+        Assert.assertEquals(total, uuids.size());
+    }
+
+    /**
+     * 多线程生成短UUID
+     *
+     * @param generator 生成器
+     * @param threadNum 线程数
+     * @param perThread 每个线程生成的数量
+     * @param uuids     收集生成的短UUID，为null时不收集
+     * @return tps
+     */
+    private long run(ShortUuidGenerator generator, int threadNum, int perThread, Set<String> uuids)
+            throws InterruptedException {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(threadNum);
+        for (int i = 0; i < threadNum; i++) {
+            new Thread(() -> {
+                try {
+                    startLatch.await();
+                    for (int j = 0; j < perThread; j++) {
+                        String uuid = generator.generate();
+                        if (null != uuids) {
+                            uuids.add(uuid);
+                        }
+                    }
+                } catch (InterruptedException ignored) {
+                } finally {
+                    endLatch.countDown();
+                }
+            }).start();
+        }
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        endLatch.await();
+        long spends = Math.max(1L, System.nanoTime() - startTime);
+        return (long) threadNum * perThread * 1000000000L / spends;
+    }
+
+    /**
+     * 早期版本基于BigInteger的编码实现，用于验证结果一致
+     *
+     * @param uuid UUID
+     * @return 短UUID
+     */
+    private String legacyEncode(UUID uuid) {
+        char[] alphabet = "23456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+        BigInteger alphabetSize = BigInteger.valueOf(alphabet.length);
+        BigInteger value = new BigInteger(uuid.toString().replaceAll("-", ""), 16);
+        StringBuilder shortUuid = new StringBuilder();
+        while (value.compareTo(BigInteger.ZERO) > 0) {
+            BigInteger[] fracAndRemainder = value.divideAndRemainder(alphabetSize);
+            shortUuid.append(alphabet[fracAndRemainder[1].intValue()]);
+            value = fracAndRemainder[0];
+        }
+        while (shortUuid.length() < 22) {
+            shortUuid.append(alphabet[0]);
+        }
+        return shortUuid.reverse().toString();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.jinpei.id.generator;
 
+import com.jinpei.id.common.time.ManualTimeSource;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -40,6 +41,19 @@ public class TimeNumberHidingGeneratorTest {
         Assert.assertEquals(originNumber, generator.parse(hidingStr));
     }
 
+    @Test
+    public void expired() {
+        ManualTimeSource timeSource = new ManualTimeSource();
+        TimeNumberHidingGenerator idGenerator = createGenerator();
+        idGenerator.setTimeSource(timeSource);
+        Long originNumber = 14825847997L;
+        String hidingStr = idGenerator.generate(originNumber);
+        timeSource.advance(30000);
+        Assert.assertEquals(originNumber, idGenerator.parse(hidingStr));
+        timeSource.advance(120000);
+        Assert.assertNull(idGenerator.parse(hidingStr));
+    }
+
     @Test
     public void batchGenerate() {
         int batchSize = 10000;